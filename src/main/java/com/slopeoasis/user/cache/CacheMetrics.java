@@ -0,0 +1,38 @@
+package com.slopeoasis.user.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exposes an ExpiringLruCache as cache.size / cache.gets{result=hit|miss} meters,
+ * read from the cache's own counters at scrape time. A TwoLevelCache additionally gets
+ * cache.l2.gets{result=hit|miss} for the lookups that went past L1.
+ */
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static void bind(MeterRegistry registry, String name, ExpiringLruCache<?, ?> cache) {
+        Gauge.builder("cache.size", cache, ExpiringLruCache::size)
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringLruCache::getHits)
+                .tag("cache", name).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ExpiringLruCache::getMisses)
+                .tag("cache", name).tag("result", "miss")
+                .register(registry);
+    }
+
+    public static void bind(MeterRegistry registry, String name, TwoLevelCache<?> cache) {
+        bind(registry, name, cache.local());
+        FunctionCounter.builder("cache.l2.gets", cache, TwoLevelCache::getL2Hits)
+                .tag("cache", name).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.l2.gets", cache, TwoLevelCache::getL2Misses)
+                .tag("cache", name).tag("result", "miss")
+                .register(registry);
+    }
+}
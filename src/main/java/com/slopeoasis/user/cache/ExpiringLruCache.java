@@ -0,0 +1,178 @@
+package com.slopeoasis.user.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Small in-process cache with a fixed maximum size and a per-entry expiry time.
+ * When full, the least recently used entry is evicted. Expired entries are dropped
+ * lazily when they are read. Hit/miss counters are kept for monitoring.
+ *
+ * Guarded by a ReentrantLock rather than synchronized, so a virtual thread waiting for
+ * the cache unmounts instead of pinning its carrier thread.
+ *
+ * A read-through load that started before a write may finish after the write invalidated
+ * the key. Loaders take invalidationStamp(key) before going to the source and store with
+ * putIfNotInvalidatedSince, which drops the value when the key was invalidated meanwhile.
+ * Invalidations are counted per stripe of keys, so an unrelated key in the same stripe
+ * only costs a skipped fill.
+ */
+public class ExpiringLruCache<K, V> {
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final long[] invalidations = new long[64];
+
+    public ExpiringLruCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    public ExpiringLruCache(int maxSize, LongSupplier clock) {
+        this.maxSize = Math.max(0, maxSize);
+        this.clock = clock;
+        // access-order LinkedHashMap gives us LRU eviction for free
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value or null when the key is absent or its entry expired.
+     */
+    public V get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expiresAtMillis <= clock.getAsLong()) {
+                entries.remove(key);
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a value that stays valid until the given epoch-millis timestamp.
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= clock.getAsLong()) {
+            return;
+        }
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, expiresAtMillis));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the value unless the key was invalidated since stamp was taken; returns whether
+     * it was stored.
+     */
+    public boolean putIfNotInvalidatedSince(K key, V value, long expiresAtMillis, long stamp) {
+        if (expiresAtMillis <= clock.getAsLong()) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (invalidations[stripe(key)] != stamp) {
+                return false;
+            }
+            entries.put(key, new Entry<>(value, expiresAtMillis));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Taken before loading a value for putIfNotInvalidatedSince. */
+    public long invalidationStamp(K key) {
+        lock.lock();
+        try {
+            return invalidations[stripe(key)];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+            invalidations[stripe(key)]++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            for (int i = 0; i < invalidations.length; i++) {
+                invalidations[i]++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(K key) {
+        int h = key != null ? key.hashCode() : 0;
+        return (h ^ (h >>> 16)) & (invalidations.length - 1);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(size(), maxSize, getHits(), getMisses(), getHitRatio());
+    }
+
+    public record CacheStats(int size, int maxSize, long hits, long misses, double hitRatio) { }
+
+    private record Entry<V>(V value, long expiresAtMillis) { }
+}
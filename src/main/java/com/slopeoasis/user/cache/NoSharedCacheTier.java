@@ -0,0 +1,38 @@
+package com.slopeoasis.user.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default for a single replica: no L2 and nobody to notify, caches are in-process only.
+ */
+@Component
+@ConditionalOnProperty(name = "users.cache.l2.type", havingValue = "none", matchIfMissing = true)
+public class NoSharedCacheTier implements SharedCacheTier {
+
+    @Override
+    public String get(String key) {
+        return null;
+    }
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        return Map.of();
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+    }
+
+    @Override
+    public void evict(String key) {
+    }
+
+    @Override
+    public void onEvicted(Consumer<String> listener) {
+    }
+}
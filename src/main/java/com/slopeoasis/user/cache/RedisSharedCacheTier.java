@@ -0,0 +1,151 @@
+package com.slopeoasis.user.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * L2 in Redis, for deployments with more than one replica. Entries are plain string keys
+ * with a PX expiry; evictions are published on a pub/sub channel as "instanceId key", and
+ * every replica drops the key from its L1 (messages from itself are ignored).
+ *
+ * Reads are synchronous with a short command timeout, writes are fire-and-forget. Redis
+ * errors are counted (cache.l2.errors) and treated as misses. Lettuce reconnects and
+ * resubscribes on its own; evictions published while a replica was disconnected are
+ * lost to it, so its L1 may serve the old value until the entry expires (users.cache.ttl-seconds).
+ */
+@Component
+@ConditionalOnProperty(name = "users.cache.l2.type", havingValue = "redis")
+public class RedisSharedCacheTier implements SharedCacheTier {
+    private static final Logger log = LoggerFactory.getLogger(RedisSharedCacheTier.class);
+    static final String CHANNEL = "user-service:cache-evict";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final RedisClient client;
+    private final StatefulRedisConnection<String, String> connection;
+    private final StatefulRedisPubSubConnection<String, String> pubSub;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Counter errors;
+
+    public RedisSharedCacheTier(@Value("${users.cache.l2.redis-url}") String redisUrl,
+                                @Value("${users.cache.l2.timeout-ms:100}") long timeoutMs,
+                                MeterRegistry meterRegistry) {
+        this.client = RedisClient.create(RedisURI.create(redisUrl));
+        this.client.setDefaultTimeout(Duration.ofMillis(timeoutMs));
+        // fails startup when Redis is unreachable: without the channel replicas would serve stale data
+        this.connection = client.connect();
+        this.pubSub = client.connectPubSub();
+        this.pubSub.addListener(new RedisPubSubAdapter<>() {
+            @Override
+            public void message(String channel, String message) {
+                onMessage(message);
+            }
+        });
+        this.pubSub.sync().subscribe(CHANNEL);
+        this.errors = Counter.builder("cache.l2.errors").register(meterRegistry);
+    }
+
+    private void onMessage(String message) {
+        int space = message.indexOf(' ');
+        if (space < 0 || message.startsWith(instanceId + " ")) {
+            return;
+        }
+        String key = message.substring(space + 1);
+        for (Consumer<String> listener : listeners) {
+            listener.accept(key);
+        }
+    }
+
+    @Override
+    public String get(String key) {
+        try {
+            return connection.sync().get(key);
+        } catch (RuntimeException e) {
+            failed("get", e);
+            return null;
+        }
+    }
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            Map<String, String> found = new HashMap<>();
+            for (KeyValue<String, String> kv : connection.sync().mget(keys.toArray(String[]::new))) {
+                if (kv.hasValue()) {
+                    found.put(kv.getKey(), kv.getValue());
+                }
+            }
+            return found;
+        } catch (RuntimeException e) {
+            failed("mget", e);
+            return Map.of();
+        }
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        connection.async().set(key, value, SetArgs.Builder.px(ttlMillis))
+                .whenComplete((ok, e) -> {
+                    if (e != null) {
+                        failed("set", e);
+                    }
+                });
+    }
+
+    @Override
+    public void evict(String key) {
+        // same connection, so Redis runs the DEL before the PUBLISH
+        connection.async().del(key);
+        connection.async().publish(CHANNEL, instanceId + " " + key)
+                .whenComplete((receivers, e) -> {
+                    if (e != null) {
+                        failed("publish", e);
+                    }
+                });
+    }
+
+    @Override
+    public void onEvicted(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private void failed(String op, Throwable e) {
+        errors.increment();
+        log.warn("Redis {} failed, falling back to the database: {}", op, e.toString());
+    }
+
+    @PreDestroy
+    public void close() {
+        pubSub.close();
+        connection.close();
+        client.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+package com.slopeoasis.user.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Second cache level (L2) shared by all replicas, together with the channel that tells
+ * the other replicas to drop an entry from their in-process L1. Values are opaque strings,
+ * TwoLevelCache does the encoding.
+ *
+ * Implementations must not throw: an unreachable L2 behaves like an empty one and the
+ * callers fall back to the database.
+ */
+public interface SharedCacheTier {
+
+    /** Cached value or null. */
+    String get(String key);
+
+    /** Values of the keys that are cached, absent keys are left out. */
+    Map<String, String> getAll(Collection<String> keys);
+
+    void put(String key, String value, long ttlMillis);
+
+    /** Deletes the entry and tells the other replicas to drop it from their L1. */
+    void evict(String key);
+
+    /** Listener for keys evicted by other replicas. */
+    void onEvicted(Consumer<String> listener);
+}
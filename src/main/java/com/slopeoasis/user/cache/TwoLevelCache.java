@@ -0,0 +1,173 @@
+package com.slopeoasis.user.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * An in-process ExpiringLruCache (L1) in front of a SharedCacheTier (L2). Reads try L1,
+ * then L2 (and copy an L2 hit into L1); writes go to both. invalidate() drops the key from
+ * both levels and, through the tier, from the L1 of every other replica.
+ *
+ * Keys are stored in L2 as "name:key". The TTL of an entry comes from the value (so
+ * negative entries can expire sooner), and applies to both levels.
+ *
+ * Values loaded from the database are stored with put(key, value, stamp), stamp taken
+ * before the load: when a write invalidated the key meanwhile the value may predate it
+ * and is dropped from both levels. The check and the L2 SET run under a per-stripe lock
+ * that invalidate also takes before its L2 DEL, so on the single L2 connection a SET that
+ * passed the check is always sent before the DEL. A write on another replica is only seen
+ * once its eviction message arrives; a load finishing in that window can still leave the
+ * old value in L2 until it expires.
+ */
+public class TwoLevelCache<V> {
+    private final String prefix;
+    private final ExpiringLruCache<String, V> l1;
+    private final SharedCacheTier l2;
+    private final Function<V, String> encoder;
+    private final Function<String, V> decoder;
+    private final ToLongFunction<V> ttlMillis;
+    private final AtomicLong l2Hits = new AtomicLong();
+    private final AtomicLong l2Misses = new AtomicLong();
+    private final ReentrantLock[] stripes = new ReentrantLock[16];
+
+    public TwoLevelCache(String name, int maxSize, SharedCacheTier l2,
+                         Function<V, String> encoder, Function<String, V> decoder, ToLongFunction<V> ttlMillis) {
+        this.prefix = name + ":";
+        this.l1 = new ExpiringLruCache<>(maxSize);
+        this.l2 = l2;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.ttlMillis = ttlMillis;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        l2.onEvicted(key -> {
+            if (key.startsWith(prefix)) {
+                l1.invalidate(key.substring(prefix.length()));
+            }
+        });
+    }
+
+    /**
+     * Returns the cached value or null when neither level has it.
+     */
+    public V get(String key) {
+        V value = l1.get(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = l1.invalidationStamp(key);
+        String raw = l2.get(prefix + key);
+        if (raw == null) {
+            l2Misses.incrementAndGet();
+            return null;
+        }
+        l2Hits.incrementAndGet();
+        value = decoder.apply(raw);
+        putLocal(key, value, stamp);
+        return value;
+    }
+
+    /**
+     * Cached values of the given keys, with a single L2 round trip for the ones not in L1.
+     * Keys that neither level has are left out.
+     */
+    public Map<String, V> getAll(Collection<String> keys) {
+        Map<String, V> found = new HashMap<>();
+        List<String> remote = new ArrayList<>();
+        Map<String, Long> stamps = new HashMap<>();
+        for (String key : keys) {
+            V value = l1.get(key);
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                remote.add(prefix + key);
+                stamps.put(key, l1.invalidationStamp(key));
+            }
+        }
+        if (!remote.isEmpty()) {
+            Map<String, String> raw = l2.getAll(remote);
+            l2Hits.addAndGet(raw.size());
+            l2Misses.addAndGet(remote.size() - raw.size());
+            for (Map.Entry<String, String> e : raw.entrySet()) {
+                String key = e.getKey().substring(prefix.length());
+                V value = decoder.apply(e.getValue());
+                putLocal(key, value, stamps.get(key));
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    /** Stores a value known to be current, e.g. the row a write just returned. */
+    public void put(String key, V value) {
+        l1.put(key, value, System.currentTimeMillis() + ttlMillis.applyAsLong(value));
+        l2.put(prefix + key, encoder.apply(value), ttlMillis.applyAsLong(value));
+    }
+
+    /** Taken before loading a value from the database, for put(key, value, stamp). */
+    public long stamp(String key) {
+        return l1.invalidationStamp(key);
+    }
+
+    /**
+     * Stores a loaded value in both levels unless the key was invalidated since stamp was
+     * taken; returns whether it was stored.
+     */
+    public boolean put(String key, V value, long stamp) {
+        ReentrantLock lock = stripe(key);
+        lock.lock();
+        try {
+            if (!putLocal(key, value, stamp)) {
+                return false;
+            }
+            l2.put(prefix + key, encoder.apply(value), ttlMillis.applyAsLong(value));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String key) {
+        if (key == null) {
+            return;
+        }
+        ReentrantLock lock = stripe(key);
+        lock.lock();
+        try {
+            l1.invalidate(key);
+        } finally {
+            lock.unlock();
+        }
+        l2.evict(prefix + key);
+    }
+
+    private boolean putLocal(String key, V value, long stamp) {
+        return l1.putIfNotInvalidatedSince(key, value, System.currentTimeMillis() + ttlMillis.applyAsLong(value), stamp);
+    }
+
+    private ReentrantLock stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    /** The in-process level, for stats and metrics. */
+    public ExpiringLruCache<String, V> local() {
+        return l1;
+    }
+
+    public long getL2Hits() {
+        return l2Hits.get();
+    }
+
+    public long getL2Misses() {
+        return l2Misses.get();
+    }
+}
@@ -1,26 +1,35 @@
 package com.slopeoasis.user.clerk;
 
-import java.security.KeyFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
-import java.security.Signature;
-import java.security.spec.RSAPublicKeySpec;
 import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.slopeoasis.user.cache.CacheMetrics;
+import com.slopeoasis.user.cache.ExpiringLruCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
 
 /**
  * Clerk JWT verifier using the official Clerk backend SDK.
  * Validates JWT tokens issued by Clerk by:
- * 1. Fetching JWKS (public keys) from Clerk's JWKS endpoint
+ * 1. Looking up the token's kid in Clerk's JWKS (see JwksKeyStore)
  * 2. Verifying token signature using the appropriate public key
  * 3. Extracting custom claims (usid, wallet) from the verified token
+ *
+ * Successfully verified tokens are cached (keyed by SHA-256 of the token) until their
+ * exp claim, so repeated requests with the same session token skip parsing and RSA.
+ *
+ * Timers (registered up front, recording does not allocate): jwt.verification by
+ * outcome (cache_hit, verified, rejected) and jwt.rsa.verify for the signature check alone.
  */
 @Component
 public class ClerkJwtVerifier {
@@ -33,9 +42,46 @@ public class ClerkJwtVerifier {
     @Value("${jwt.dev-mode:false}")
     private boolean devMode;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, PublicKey> publicKeyCache = new HashMap<>();
+    @Value("${jwt.clock-skew-seconds:5}")
+    private long clockSkewSeconds;
+
+    @Value("${jwt.token-cache.max-size:10000}")
+    private int tokenCacheMaxSize;
+
+    private final JwksKeyStore jwksKeyStore;
+    private final MeterRegistry meterRegistry;
+    private final Timer cacheHitTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+    private final Timer rsaTimer;
+    private ExpiringLruCache<String, ClerkTokenPayload> tokenCache;
+
+    public ClerkJwtVerifier(JwksKeyStore jwksKeyStore, MeterRegistry meterRegistry) {
+        this.jwksKeyStore = jwksKeyStore;
+        this.meterRegistry = meterRegistry;
+        this.cacheHitTimer = verificationTimer(meterRegistry, "cache_hit");
+        this.verifiedTimer = verificationTimer(meterRegistry, "verified");
+        this.rejectedTimer = verificationTimer(meterRegistry, "rejected");
+        this.rsaTimer = Timer.builder("jwt.rsa.verify")
+                .description("RS256 signature check of a session token")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Session token verification, whole path")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void init() {
+        // max-size 0 effectively disables the cache (every put is evicted immediately)
+        tokenCache = new ExpiringLruCache<>(tokenCacheMaxSize);
+        CacheMetrics.bind(meterRegistry, "jwtTokens", tokenCache);
+    }
 
     /**
      * Verify a Clerk JWT token and extract claims.
@@ -51,135 +97,108 @@ public class ClerkJwtVerifier {
             throw new IllegalStateException("Clerk verification requires CLERK_ISSUER and CLERK_JWKS_URL env vars");
         }
 
-        // Split token into parts
-        String[] parts = token.split("\\.");
-        if (parts.length != 3) {
-            throw new IllegalArgumentException("Invalid JWT format: expected 3 parts");
+        // Already verified and not yet expired -> no parsing, no crypto
+        long start = System.nanoTime();
+        byte[] raw = token.getBytes(StandardCharsets.US_ASCII);
+        String cacheKey = tokenCacheKey(raw);
+        ClerkTokenPayload cached = tokenCache.get(cacheKey);
+        if (cached != null) {
+            cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
         }
 
-        // Decode and parse header and payload
-        String headerJson = new String(Base64.getUrlDecoder().decode(parts[0]));
-        String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]));
-        String signatureStr = parts[2];
+        try {
+            ClerkTokenPayload payload = verifyUncached(raw, cacheKey);
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return payload;
+        } catch (Exception e) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
 
-        JsonNode headerNode = objectMapper.readTree(headerJson);
-        JsonNode payloadNode = objectMapper.readTree(payloadJson);
+    private ClerkTokenPayload verifyUncached(byte[] raw, String cacheKey) throws Exception {
+        ClerkTokenParser.ParsedToken parsed = ClerkTokenParser.parse(raw);
 
         // Verify issuer claim
-        String tokenIssuer = payloadNode.path("iss").asText(null);
-        if (!issuer.equals(tokenIssuer)) {
-            throw new IllegalArgumentException("Invalid issuer: expected " + issuer + " but got " + tokenIssuer);
+        if (!issuer.equals(parsed.iss)) {
+            throw new IllegalArgumentException("Invalid issuer: expected " + issuer + " but got " + parsed.iss);
+        }
+
+        // Verify exp/nbf window (with a small clock skew allowance)
+        long now = System.currentTimeMillis();
+        long skewMillis = clockSkewSeconds * 1000;
+        if (parsed.exp > 0 && now > parsed.exp * 1000 + skewMillis) {
+            throw new IllegalArgumentException("Token expired");
+        }
+        if (parsed.nbf > 0 && now + skewMillis < parsed.nbf * 1000) {
+            throw new IllegalArgumentException("Token not yet valid");
         }
 
         // Get key ID from header
-        String kid = headerNode.path("kid").asText(null);
-        if (kid == null || kid.isBlank()) {
+        if (parsed.kid == null || parsed.kid.isBlank()) {
             throw new IllegalArgumentException("Token header missing 'kid' field");
         }
 
         // Get public key from JWKS
-        PublicKey publicKey = getPublicKeyFromJwks(kid);
+        PublicKey publicKey = jwksKeyStore.getKey(parsed.kid);
         if (publicKey == null) {
-            throw new IllegalArgumentException("Unable to find public key with kid: " + kid);
+            throw new IllegalArgumentException("Unable to find public key with kid: " + parsed.kid);
         }
 
         // Verify signature
-        String signedContent = parts[0] + "." + parts[1];
-        byte[] signatureBytes = Base64.getUrlDecoder().decode(signatureStr);
-    
-        Signature sig = Signature.getInstance("SHA256withRSA");
-        sig.initVerify(publicKey);
-        sig.update(signedContent.getBytes());
-    
-        if (!sig.verify(signatureBytes)) {
+        long rsaStart = System.nanoTime();
+        boolean validSignature = ClerkTokenParser.verifySignature(parsed, publicKey);
+        rsaTimer.record(System.nanoTime() - rsaStart, TimeUnit.NANOSECONDS);
+        if (!validSignature) {
             throw new IllegalArgumentException("Invalid token signature");
         }
 
         // Extract custom claims
-        String usid = payloadNode.path("usid").asText(null);
-        String wallet = payloadNode.path("wallet").asText(null);
-
-        if (usid == null || usid.isBlank()) {
+        if (parsed.usid == null || parsed.usid.isBlank()) {
             throw new IllegalArgumentException("Token missing 'usid' claim");
         }
 
-        return new ClerkTokenPayload(usid, wallet);
-    }
-
-    /**
-     * Fetch JWKS from Clerk and extract the public key matching the token's kid (key ID).
-     */
-    private PublicKey getPublicKeyFromJwks(String kid) throws Exception {
-        // Check cache first
-        if (publicKeyCache.containsKey(kid)) {
-            return publicKeyCache.get(kid);
-        }
-
-        // Fetch JWKS from Clerk
-        String jwksJson = restTemplate.getForObject(jwksUrl, String.class);
-        JsonNode jwksNode = objectMapper.readTree(jwksJson);
-        JsonNode keysArray = jwksNode.path("keys");
-
-        for (JsonNode keyNode : keysArray) {
-            if (kid.equals(keyNode.path("kid").asText())) {
-                PublicKey key = extractPublicKeyFromJwk(keyNode);
-                publicKeyCache.put(kid, key);
-                return key;
-            }
+        ClerkTokenPayload payload = new ClerkTokenPayload(parsed.usid, parsed.wallet);
+        // Tokens without exp are never cached, there is no safe point to drop them
+        if (parsed.exp > 0) {
+            tokenCache.put(cacheKey, payload, parsed.exp * 1000 + skewMillis);
         }
-
-        return null;
+        return payload;
     }
 
     /**
-     * Extract a PublicKey from a JWK (JSON Web Key) node.
+     * Hit/miss counters and size of the verified-token cache.
      */
-    private PublicKey extractPublicKeyFromJwk(JsonNode jwk) throws Exception {
-        String kty = jwk.path("kty").asText();
-        if (!"RSA".equals(kty)) {
-            throw new IllegalArgumentException("Unsupported key type: " + kty);
-        }
+    public ExpiringLruCache.CacheStats getTokenCacheStats() {
+        return tokenCache.stats();
+    }
 
-        // Extract RSA components (n and e)
-        String n = jwk.path("n").asText();
-        String e = jwk.path("e").asText();
+    private String tokenCacheKey(byte[] token) {
+        // a new digest is ~50 ns next to hashing the token; a ThreadLocal would build one per
+        // request anyway under virtual threads and keep it alive in every thread's map
+        byte[] hash = newSha256().digest(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
 
-        if (n.isBlank() || e.isBlank()) {
-            throw new IllegalArgumentException("Missing RSA key components in JWK");
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-
-        // Decode n and e from Base64url
-        byte[] nBytes = Base64.getUrlDecoder().decode(n);
-        byte[] eBytes = Base64.getUrlDecoder().decode(e);
-
-        // Convert to BigInteger and create RSA key spec
-        java.math.BigInteger modulus = new java.math.BigInteger(1, nBytes);
-        java.math.BigInteger exponent = new java.math.BigInteger(1, eBytes);
-
-        RSAPublicKeySpec spec = new RSAPublicKeySpec(modulus, exponent);
-        KeyFactory kf = KeyFactory.getInstance("RSA");
-        return kf.generatePublic(spec);
     }
 
     /**
      * Dev mode: extract claims without signature verification.
      */
     private ClerkTokenPayload extractClaimsWithoutVerification(String token) throws Exception {
-        String[] parts = token.split("\\.");
-        if (parts.length != 3) {
-            throw new IllegalArgumentException("Invalid JWT format");
-        }
-
-        String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]));
-        JsonNode claims = objectMapper.readTree(payloadJson);
-
-        String usid = claims.path("usid").asText(null);
-        String wallet = claims.path("wallet").asText(null);
+        ClerkTokenParser.ParsedToken parsed = ClerkTokenParser.parse(token.getBytes(StandardCharsets.US_ASCII));
 
-        if (usid == null || usid.isBlank()) {
+        if (parsed.usid == null || parsed.usid.isBlank()) {
             throw new IllegalArgumentException("Token missing 'usid' claim");
         }
 
-        return new ClerkTokenPayload(usid, wallet);
+        return new ClerkTokenPayload(parsed.usid, parsed.wallet);
     }
 }
@@ -0,0 +1,147 @@
+package com.slopeoasis.user.clerk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Allocation-lean JWT parsing used on the request hot path.
+ *
+ * Works on the ASCII bytes of the token: the dots are found by index, header and
+ * payload are base64url-decoded straight from their byte ranges and read with Jackson's
+ * streaming parser, pulling only the claims we need (no JsonNode trees). The RS256
+ * signature is checked over the original header.payload byte range, with Signature
+ * instances reused through a small pool.
+ */
+final class ClerkTokenParser {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+    // Signature can't be cloned, and a new one pays the provider lookup on initVerify (~300 ns
+    // against ~80 ns reused). Not a ThreadLocal: under virtual threads every request is a new
+    // thread. Verification is CPU bound, so one idle instance per core is enough; extras are dropped.
+    private static final ArrayBlockingQueue<Signature> RS256 =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private ClerkTokenParser() {
+    }
+
+    /**
+     * Parses header and payload claims. Does not verify anything.
+     */
+    static ParsedToken parse(byte[] raw) throws IOException {
+        int firstDot = indexOf(raw, (byte) '.', 0);
+        int secondDot = firstDot < 0 ? -1 : indexOf(raw, (byte) '.', firstDot + 1);
+        if (firstDot <= 0 || secondDot < 0 || indexOf(raw, (byte) '.', secondDot + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid JWT format: expected 3 parts");
+        }
+
+        ParsedToken token = new ParsedToken(raw, secondDot);
+        readHeader(decode(raw, 0, firstDot), token);
+        readPayload(decode(raw, firstDot + 1, secondDot), token);
+        return token;
+    }
+
+    /**
+     * Verifies the RS256 signature over the header.payload bytes of the token.
+     */
+    static boolean verifySignature(ParsedToken token, PublicKey key) throws GeneralSecurityException {
+        if (token.alg != null && !"RS256".equals(token.alg)) {
+            throw new IllegalArgumentException("Unsupported token algorithm: " + token.alg);
+        }
+        ByteBuffer signature = decode(token.raw, token.signedLength + 1, token.raw.length);
+        Signature sig = RS256.poll();
+        if (sig == null) {
+            sig = Signature.getInstance("SHA256withRSA");
+        }
+        try {
+            // initVerify resets whatever a failed verification left behind
+            sig.initVerify(key);
+            sig.update(token.raw, 0, token.signedLength);
+            return sig.verify(signature.array(), signature.arrayOffset() + signature.position(), signature.remaining());
+        } finally {
+            RS256.offer(sig);
+        }
+    }
+
+    private static void readHeader(ByteBuffer json, ParsedToken token) throws IOException {
+        try (JsonParser p = createParser(json)) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                // field names are canonicalized by the factory, so this does not allocate
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "kid" -> token.kid = p.getValueAsString();
+                    case "alg" -> token.alg = p.getValueAsString();
+                    default -> p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static void readPayload(ByteBuffer json, ParsedToken token) throws IOException {
+        try (JsonParser p = createParser(json)) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "iss" -> token.iss = p.getValueAsString();
+                    case "exp" -> token.exp = p.getValueAsLong(0);
+                    case "nbf" -> token.nbf = p.getValueAsLong(0);
+                    case "usid" -> token.usid = p.getValueAsString();
+                    case "wallet" -> token.wallet = p.getValueAsString();
+                    default -> p.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static JsonParser createParser(ByteBuffer json) throws IOException {
+        JsonParser p = JSON.createParser(json.array(), json.arrayOffset() + json.position(), json.remaining());
+        if (p.nextToken() != JsonToken.START_OBJECT) {
+            p.close();
+            throw new IllegalArgumentException("Invalid JWT format: segment is not a JSON object");
+        }
+        return p;
+    }
+
+    private static ByteBuffer decode(byte[] raw, int from, int to) {
+        return BASE64URL.decode(ByteBuffer.wrap(raw, from, to - from));
+    }
+
+    private static int indexOf(byte[] raw, byte b, int from) {
+        for (int i = from; i < raw.length; i++) {
+            if (raw[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claims pulled out of a token plus the byte range needed for signature verification.
+     */
+    static final class ParsedToken {
+        private final byte[] raw;
+        private final int signedLength;
+        String kid;
+        String alg;
+        String iss;
+        long exp;
+        long nbf;
+        String usid;
+        String wallet;
+
+        private ParsedToken(byte[] raw, int signedLength) {
+            this.raw = raw;
+            this.signedLength = signedLength;
+        }
+    }
+}
@@ -1,14 +1,14 @@
 package com.slopeoasis.user.clerk;
 
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.slopeoasis.user.http.OutboundHttpClient;
 
 /**
  * HTTP-based Clerk verifier. This implementation expects the environment property
@@ -21,12 +21,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Component
 public class HttpClerkVerifier implements ClerkVerifier {
-    private final RestTemplate rest = new RestTemplate();
+    private final OutboundHttpClient outbound;
     private final ObjectMapper mapper = new ObjectMapper();
     private final String verifyUrl;
     private final boolean disabled;
 
-    public HttpClerkVerifier() {
+    public HttpClerkVerifier(OutboundHttpClient outbound) {
+        this.outbound = outbound;
         // Configure via environment variables so deploy-time config can point to Clerk
         this.verifyUrl = System.getenv("CLERK_VERIFY_URL");
         this.disabled = "true".equalsIgnoreCase(System.getenv("CLERK_VERIFY_DISABLED"));
@@ -41,16 +42,13 @@ public class HttpClerkVerifier implements ClerkVerifier {
             throw new IllegalStateException("CLERK_VERIFY_URL is not configured. Set it to Clerk's verification endpoint.");
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", token);
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-        ResponseEntity<String> resp = rest.exchange(verifyUrl, HttpMethod.GET, entity, String.class);
-        if (!resp.getStatusCode().is2xxSuccessful()) {
-            throw new IllegalArgumentException("Clerk token verification failed: " + resp.getStatusCode());
+        // bounded by the clerk-api timeout/bulkhead/circuit breaker, see OutboundHttpClient
+        HttpResponse<String> resp = outbound.get("clerk-api", URI.create(verifyUrl), Map.of("Authorization", token));
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+            throw new IllegalArgumentException("Clerk token verification failed: " + resp.statusCode());
         }
 
-        JsonNode root = mapper.readTree(resp.getBody());
+        JsonNode root = mapper.readTree(resp.body());
         // Attempt to extract user id and wallet address from common fields. Adjust as needed.
         String userId = root.path("user_id").asText(null);
         String wallet = null;
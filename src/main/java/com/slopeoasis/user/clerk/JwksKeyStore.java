@@ -0,0 +1,271 @@
+package com.slopeoasis.user.clerk;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.slopeoasis.user.http.OutboundHttpClient;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Holds Clerk's JWKS public keys (kid -> PublicKey) as an immutable snapshot that is
+ * swapped atomically on refresh.
+ *
+ * Keys are refreshed in the background, on an interval taken from the JWKS response
+ * Cache-Control max-age. Lookups only read the current snapshot; an unknown kid
+ * schedules one shared refresh (rate limited by a cooldown) instead of every request
+ * fetching JWKS itself. The only time a request thread waits for the network is the
+ * very first lookup before any keys were loaded. When Clerk is unreachable the last
+ * known good keys keep being served.
+ */
+@Component
+public class JwksKeyStore {
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyStore.class);
+
+    @Value("${jwt.jwks-url:}")
+    private String jwksUrl;
+
+    @Value("${jwt.dev-mode:false}")
+    private boolean devMode;
+
+    // used when the JWKS response has no usable Cache-Control max-age
+    @Value("${jwt.jwks.refresh-interval-seconds:300}")
+    private long refreshIntervalSeconds;
+
+    // bounds applied to max-age so a bad header can't cause a refresh storm or stale keys
+    @Value("${jwt.jwks.min-refresh-interval-seconds:30}")
+    private long minRefreshIntervalSeconds;
+
+    @Value("${jwt.jwks.max-refresh-interval-seconds:3600}")
+    private long maxRefreshIntervalSeconds;
+
+    @Value("${jwt.jwks.unknown-kid-cooldown-seconds:30}")
+    private long unknownKidCooldownSeconds;
+
+    @Value("${jwt.jwks.warmup-timeout-ms:5000}")
+    private long warmupTimeoutMs;
+
+    private final OutboundHttpClient outbound;
+    private final Timer fetchSuccessTimer;
+    private final Timer fetchFailureTimer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<Map<String, PublicKey>> keys = new AtomicReference<>(Map.of());
+    private final AtomicReference<CompletableFuture<Long>> inFlight = new AtomicReference<>();
+    private final AtomicLong lastUnknownKidRefresh = new AtomicLong();
+    private volatile boolean loaded;
+    private ScheduledExecutorService scheduler;
+
+    public JwksKeyStore(OutboundHttpClient outbound, MeterRegistry meterRegistry) {
+        this.outbound = outbound;
+        this.fetchSuccessTimer = fetchTimer(meterRegistry, "success");
+        this.fetchFailureTimer = fetchTimer(meterRegistry, "failure");
+        Gauge.builder("jwks.keys", this, JwksKeyStore::getKeyCount).register(meterRegistry);
+    }
+
+    private static Timer fetchTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("jwks.fetch")
+                .description("Fetch and parse of Clerk's JWKS")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (devMode || jwksUrl == null || jwksUrl.isBlank()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        // one warm-up fetch, shared with requests that arrive before it finishes;
+        // the next refresh is scheduled when it completes
+        scheduledRefresh();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the public key for the given kid, or null when it is not known (yet).
+     */
+    public PublicKey getKey(String kid) throws Exception {
+        PublicKey key = keys.get().get(kid);
+        if (key != null) {
+            return key;
+        }
+        if (scheduler == null) {
+            throw new IllegalStateException("JWKS key store is not running (CLERK_JWKS_URL not set or dev mode)");
+        }
+        if (!loaded) {
+            // Warm-up: nothing loaded yet, wait for the shared fetch instead of failing
+            try {
+                refreshAsync().get(warmupTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Timed out waiting for JWKS");
+            }
+            return keys.get().get(kid);
+        }
+        // Possibly a rotated key: trigger one refresh, don't wait for it
+        long now = System.currentTimeMillis();
+        long last = lastUnknownKidRefresh.get();
+        if (now - last >= unknownKidCooldownSeconds * 1000 && lastUnknownKidRefresh.compareAndSet(last, now)) {
+            refreshAsync();
+        }
+        return null;
+    }
+
+    public int getKeyCount() {
+        return keys.get().size();
+    }
+
+    /**
+     * Starts a refresh unless one is already running, in which case the running one is returned.
+     * Completes with the suggested delay (seconds) until the next refresh.
+     */
+    private CompletableFuture<Long> refreshAsync() {
+        while (true) {
+            CompletableFuture<Long> current = inFlight.get();
+            if (current != null) {
+                return current;
+            }
+            CompletableFuture<Long> next = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, next)) {
+                scheduler.execute(() -> {
+                    try {
+                        next.complete(fetchKeys());
+                    } catch (Exception e) {
+                        next.completeExceptionally(e);
+                    } finally {
+                        inFlight.set(null);
+                    }
+                });
+                return next;
+            }
+        }
+    }
+
+    // joins a refresh already in flight (warm-up or unknown kid) rather than fetching again
+    private void scheduledRefresh() {
+        refreshAsync().whenComplete((delaySeconds, e) -> {
+            if (e != null) {
+                // keep serving the last known good keys, retry sooner
+                log.warn("JWKS refresh failed: {}", e.getMessage());
+                delaySeconds = minRefreshIntervalSeconds;
+            }
+            if (!scheduler.isShutdown()) {
+                scheduler.schedule(this::scheduledRefresh, delaySeconds, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    /**
+     * Fetches JWKS, swaps in the new key snapshot and returns the suggested delay
+     * (seconds) until the next refresh.
+     */
+    private long fetchKeys() throws Exception {
+        long start = System.nanoTime();
+        try {
+            long delay = fetchAndSwapKeys();
+            fetchSuccessTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return delay;
+        } catch (Exception e) {
+            fetchFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private long fetchAndSwapKeys() throws Exception {
+        HttpResponse<String> resp = outbound.get("clerk-jwks", URI.create(jwksUrl), Map.of());
+        if (resp.statusCode() != 200) {
+            throw new IllegalStateException("JWKS fetch failed: HTTP " + resp.statusCode());
+        }
+        JsonNode keysArray = objectMapper.readTree(resp.body()).path("keys");
+
+        Map<String, PublicKey> fresh = new HashMap<>();
+        for (JsonNode keyNode : keysArray) {
+            String kid = keyNode.path("kid").asText(null);
+            if (kid == null || !"RSA".equals(keyNode.path("kty").asText())) {
+                continue;
+            }
+            fresh.put(kid, extractPublicKeyFromJwk(keyNode));
+        }
+        if (fresh.isEmpty()) {
+            throw new IllegalStateException("JWKS response contained no RSA keys");
+        }
+        keys.set(Map.copyOf(fresh));
+        loaded = true;
+        return refreshDelaySeconds(resp.headers().firstValue("Cache-Control").orElse(null));
+    }
+
+    private long refreshDelaySeconds(String cacheControl) {
+        long delay = refreshIntervalSeconds;
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String d = directive.trim().toLowerCase();
+                if (d.startsWith("max-age=")) {
+                    try {
+                        delay = Long.parseLong(d.substring("max-age=".length()));
+                    } catch (NumberFormatException ignored) {
+                        // fall back to the configured interval
+                    }
+                } else if (d.equals("no-cache") || d.equals("no-store")) {
+                    delay = minRefreshIntervalSeconds;
+                }
+            }
+        }
+        return Math.min(Math.max(delay, minRefreshIntervalSeconds), maxRefreshIntervalSeconds);
+    }
+
+    /**
+     * Extract a PublicKey from a JWK (JSON Web Key) node.
+     */
+    private PublicKey extractPublicKeyFromJwk(JsonNode jwk) throws Exception {
+        // Extract RSA components (n and e)
+        String n = jwk.path("n").asText();
+        String e = jwk.path("e").asText();
+
+        if (n.isBlank() || e.isBlank()) {
+            throw new IllegalArgumentException("Missing RSA key components in JWK");
+        }
+
+        // Decode n and e from Base64url and create RSA key spec
+        BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(n));
+        BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(e));
+
+        RSAPublicKeySpec spec = new RSAPublicKeySpec(modulus, exponent);
+        KeyFactory kf = KeyFactory.getInstance("RSA");
+        return kf.generatePublic(spec);
+    }
+}
@@ -2,11 +2,13 @@ package com.slopeoasis.user.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.slopeoasis.user.interceptor.JwtInterceptor;
 
+@Profile("!reactive")
 @Configuration
 public class SecurityConfig implements WebMvcConfigurer {
 
@@ -0,0 +1,51 @@
+package com.slopeoasis.user.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Sampled SQL logging, replacing spring.jpa.show-sql (which printed every statement to
+ * stdout). A Hibernate StatementInspector logs roughly logging.sql.sample-rate of the
+ * prepared statements to the "com.slopeoasis.user.sql" logger; 0 disables it.
+ */
+@Profile("!reactive")
+@Configuration
+public class SqlLoggingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sampledSqlLogging(@Value("${logging.sql.sample-rate:0}") double sampleRate) {
+        return properties -> {
+            if (sampleRate > 0) {
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SampledSqlInspector(sampleRate));
+            }
+        };
+    }
+
+    static final class SampledSqlInspector implements StatementInspector {
+        private static final Logger log = LoggerFactory.getLogger("com.slopeoasis.user.sql");
+
+        private final double sampleRate;
+
+        SampledSqlInspector(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log.debug("sql: {}", sql);
+            }
+            // returned unchanged, the inspector only observes
+            return sql;
+        }
+    }
+}
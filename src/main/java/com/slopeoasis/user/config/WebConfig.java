@@ -1,10 +1,12 @@
 package com.slopeoasis.user.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+@Profile("!reactive")
 @Configuration
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
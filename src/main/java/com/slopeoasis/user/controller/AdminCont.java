@@ -0,0 +1,160 @@
+package com.slopeoasis.user.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.slopeoasis.user.service.UserBulkServ;
+import com.slopeoasis.user.service.UserServ;
+
+/**
+ * Admin tooling: keyset-paginated user listing and nickname search, and bulk export/import
+ * for analytics back-fills and migrations between environments. Behind the
+ * JWT interceptor like the rest of /users/**, and additionally limited to the Clerk IDs in
+ * users.admin.clerk-ids (none by default, which disables them).
+ */
+@Profile("!reactive")
+@RestController
+@RequestMapping("/users/admin")
+public class AdminCont {
+    private static final Logger log = LoggerFactory.getLogger(AdminCont.class);
+
+    private final UserServ userServ;
+    private final UserBulkServ userBulkServ;
+    private final Set<String> adminClerkIds;
+
+    public AdminCont(UserServ userServ,
+                     UserBulkServ userBulkServ,
+                     @Value("${users.admin.clerk-ids:}") String[] adminClerkIds) {
+        this.userServ = userServ;
+        this.userBulkServ = userBulkServ;
+        this.adminClerkIds = Arrays.stream(adminClerkIds)
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private boolean isAdmin(String userId) {
+        return userId != null && adminClerkIds.contains(userId);
+    }
+
+    @Operation(summary = "List users ordered by id, keyset paginated (admin)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK; pass nextCursor back as cursor for the next page, null on the last one"),
+        @ApiResponse(responseCode = "400", description = "Malformed cursor or limit outside 1.." + UserServ.MAX_PAGE_SIZE),
+        @ApiResponse(responseCode = "403", description = "Not an admin")
+    })
+    @GetMapping("/users")
+    public ResponseEntity<UserServ.UserPage> listUsers(@RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "" + UserServ.DEFAULT_PAGE_SIZE) int limit) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ResponseEntity.ok(userServ.listUsers(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Search users by nickname prefix, keyset paginated (admin)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK, ordered by nickname; nextCursor as for the listing"),
+        @ApiResponse(responseCode = "400", description = "Missing prefix, malformed cursor or limit outside 1.." + UserServ.MAX_PAGE_SIZE),
+        @ApiResponse(responseCode = "403", description = "Not an admin")
+    })
+    @GetMapping("/users/search")
+    public ResponseEntity<UserServ.UserPage> searchUsers(@RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                                         @RequestParam String prefix,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "" + UserServ.DEFAULT_PAGE_SIZE) int limit) {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ResponseEntity.ok(userServ.searchByNicknamePrefix(prefix, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Streams straight to the response: written synchronously, so no async request timeout applies
+    @Operation(summary = "Export all users as NDJSON or CSV (admin)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK, streamed"),
+        @ApiResponse(responseCode = "400", description = "Unknown format"),
+        @ApiResponse(responseCode = "403", description = "Not an admin")
+    })
+    @GetMapping("/export")
+    public void exportUsers(@RequestAttribute(name = "X-User-Id", required = false) String userId,
+                            @RequestParam(defaultValue = "ndjson") String format,
+                            HttpServletResponse response) throws IOException {
+        if (!isAdmin(userId)) {
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        UserBulkServ.Format f;
+        try {
+            f = UserBulkServ.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setContentType(f.contentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + f.extension() + "\"");
+        try {
+            userBulkServ.export(f, response.getOutputStream());
+        } catch (UncheckedIOException e) {
+            // the client went away, nothing left to answer
+            log.warn("User export aborted: {}", e.getCause().toString());
+        }
+    }
+
+    @Operation(summary = "Import (upsert on clerk_id) users from NDJSON or CSV (admin)")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Imported; rows, millis and rowsPerSecond"),
+        @ApiResponse(responseCode = "400", description = "Unknown format or malformed record"),
+        @ApiResponse(responseCode = "403", description = "Not an admin"),
+        @ApiResponse(responseCode = "409", description = "Nickname already taken, earlier batches are kept")
+    })
+    @PostMapping("/import")
+    public ResponseEntity<?> importUsers(@RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                         @RequestParam(defaultValue = "ndjson") String format,
+                                         HttpServletRequest request) throws IOException {
+        if (!isAdmin(userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            // the body is read as a stream, never buffered as a whole
+            return ResponseEntity.ok(userBulkServ.importUsers(UserBulkServ.Format.parse(format), request.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
@@ -1,19 +1,63 @@
 package com.slopeoasis.user.controller;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.slopeoasis.user.cache.ExpiringLruCache;
+import com.slopeoasis.user.clerk.ClerkJwtVerifier;
+import com.slopeoasis.user.http.OutboundHttpClient;
+import com.slopeoasis.user.service.UserServ;
+import com.slopeoasis.user.web3j.WalletChallengeStore;
+
 /**
  * Health check endpoint for debugging connectivity.
  */
+@Profile("!reactive")
 @RestController
 @RequestMapping("/healthuser")
 public class HealthController {
-    
+
+    private final ClerkJwtVerifier clerkJwtVerifier;
+    private final UserServ userServ;
+    private final OutboundHttpClient outboundHttpClient;
+
+    public HealthController(ClerkJwtVerifier clerkJwtVerifier, UserServ userServ,
+                            OutboundHttpClient outboundHttpClient) {
+        this.clerkJwtVerifier = clerkJwtVerifier;
+        this.userServ = userServ;
+        this.outboundHttpClient = outboundHttpClient;
+    }
+
     @GetMapping
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("User-service backend is running!!");
     }
+
+    // GET /healthuser/caches - hit/miss counters of in-process caches
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, ExpiringLruCache.CacheStats>> caches() {
+        Map<String, ExpiringLruCache.CacheStats> stats = new LinkedHashMap<>();
+        stats.put("jwtTokens", clerkJwtVerifier.getTokenCacheStats());
+        stats.put("users", userServ.getUserCacheStats());
+        stats.put("walletOwners", userServ.getWalletOwnerCacheStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    // GET /healthuser/wallet-challenges - outstanding/issued/consumed/expired challenge counters
+    @GetMapping("/wallet-challenges")
+    public ResponseEntity<WalletChallengeStore.ChallengeStats> walletChallenges() {
+        return ResponseEntity.ok(userServ.getWalletChallengeStats());
+    }
+
+    // GET /healthuser/upstreams - circuit state, in-flight calls and latency histogram per upstream
+    @GetMapping("/upstreams")
+    public ResponseEntity<Map<String, OutboundHttpClient.UpstreamStats>> upstreams() {
+        return ResponseEntity.ok(outboundHttpClient.stats());
+    }
 }
@@ -1,70 +1,195 @@
 package com.slopeoasis.user.controller;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
-import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
 import com.slopeoasis.user.service.UserCreationResult;
+import com.slopeoasis.user.service.UserETags;
 import com.slopeoasis.user.service.UserServ;
+import com.slopeoasis.user.web3j.WalletAddresses;
+import com.slopeoasis.user.web3j.WalletChallenge;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping("/users")
 // Allow requests from the frontend during development. The property CORS_ALLOWED_ORIGIN
 // can be set in the environment; it defaults to http://localhost:3000
 @CrossOrigin(origins = "${CORS_ALLOWED_ORIGIN:http://localhost:3000}")
 public class UserCont {
+    private static final Logger log = LoggerFactory.getLogger(UserCont.class);
 
     private final UserServ userServ;
+    private final CacheControl publicCacheControl;
 
     @Autowired
-    public UserCont(UserServ userServ) {
+    public UserCont(UserServ userServ,
+                    @Value("${users.public.max-age-seconds:30}") long publicMaxAgeSeconds) {
         this.userServ = userServ;
+        this.publicCacheControl = CacheControl.maxAge(Duration.ofSeconds(publicMaxAgeSeconds)).cachePublic();
+    }
+
+    // ETag + Cache-Control for a public response; on a matching If-None-Match the body is not built
+    private <T> ResponseEntity<T> conditional(WebRequest request, UserSnapshot u, Function<UserSnapshot, T> body) {
+        String etag = UserETags.of(u);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(publicCacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(publicCacheControl).body(body.apply(u));
+    }
+
+    // Successful write: 200 with the ETag of the new version, for the client's next If-Match
+    private static ResponseEntity<Void> written(String clerkId, UserVersion version) {
+        return ResponseEntity.ok().eTag(UserETags.of(clerkId, version)).build();
+    }
+
+    // A failed If-Match is 412; without one the update lost to concurrent writers on every retry
+    private static ResponseEntity<Void> conflict(UserVersion expected) {
+        return ResponseEntity.status(expected != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
     }
 
     // Public endpoint to expose nickname for a given Clerk user
     @Operation(summary = "Get public profile by Clerk ID")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "OK"),
+        @ApiResponse(responseCode = "304", description = "Not modified (If-None-Match)"),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/public/{clerkId}")
-    public ResponseEntity<UserServ.PublicProfile> getPublicProfile(@PathVariable String clerkId) {
-        UserServ.PublicProfile profile = userServ.getPublicProfileByClerkId(clerkId);
-        if (profile == null) {
+    public ResponseEntity<UserServ.PublicProfile> getPublicProfile(@PathVariable String clerkId, WebRequest request) {
+        UserSnapshot u = userServ.getSnapshot(clerkId);
+        if (u == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return conditional(request, u, UserServ.PublicProfile::of);
+    }
+
+    // Public endpoint to resolve many Clerk IDs at once (e.g. post authors in a feed page)
+    @Operation(summary = "Get public profiles for a list of Clerk IDs")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK, unknown Clerk IDs are omitted"),
+        @ApiResponse(responseCode = "400", description = "Empty list or more than " + UserServ.MAX_BATCH_SIZE + " IDs")
+    })
+    @PostMapping("/public/batch")
+    public ResponseEntity<Map<String, UserServ.PublicProfile>> getPublicProfiles(@RequestBody List<String> clerkIds) {
+        if (clerkIds == null || clerkIds.isEmpty() || clerkIds.size() > UserServ.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userServ.getPublicProfilesByClerkIds(clerkIds));
+    }
+
+    // Public endpoint for recommendations: users interested in some themes
+    @Operation(summary = "Find users by themes (all or any of them), keyset paginated")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK, ordered by user id; pass nextCursor back as cursor, null on the last page"),
+        @ApiResponse(responseCode = "400", description = "Unknown theme, malformed cursor or limit outside 1.." + UserServ.MAX_PAGE_SIZE),
+        @ApiResponse(responseCode = "503", description = "Theme index still loading after startup")
+    })
+    @GetMapping("/public/by-themes")
+    public ResponseEntity<UserServ.UserPage> getUsersByThemes(@RequestParam List<String> tags,
+                                                              @RequestParam(defaultValue = "all") String match,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "" + UserServ.DEFAULT_PAGE_SIZE) int limit) {
+        if (!match.equals("all") && !match.equals("any")) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            UserServ.UserPage page = userServ.findByThemes(tags, match.equals("all"), cursor, limit);
+            if (page == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Public endpoint to resolve a verified Polygon wallet back to its user
+    @Operation(summary = "Get user by verified Polygon wallet address")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK"),
+        @ApiResponse(responseCode = "400", description = "Malformed wallet address"),
+        @ApiResponse(responseCode = "404", description = "No user verified this wallet")
+    })
+    @GetMapping("/public/by-wallet/{walletAddress}")
+    public ResponseEntity<UserServ.WalletOwner> getUserByWallet(@PathVariable String walletAddress) {
+        if (!WalletAddresses.isValid(walletAddress.trim())) {
+            return ResponseEntity.badRequest().build();
+        }
+        UserServ.WalletOwner owner = userServ.getWalletOwner(walletAddress);
+        if (owner == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(profile);
+        return ResponseEntity.ok(owner);
+    }
+
+    // Public batch variant for indexers resolving many transfer events at once
+    @Operation(summary = "Get users for a list of verified Polygon wallet addresses")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "OK, keyed by lowercase address; unknown and malformed addresses are omitted"),
+        @ApiResponse(responseCode = "400", description = "Empty list or more than " + UserServ.MAX_BATCH_SIZE + " addresses")
+    })
+    @PostMapping("/public/by-wallet/batch")
+    public ResponseEntity<Map<String, UserServ.WalletOwner>> getUsersByWallets(@RequestBody List<String> walletAddresses) {
+        if (walletAddresses == null || walletAddresses.isEmpty() || walletAddresses.size() > UserServ.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userServ.getWalletOwners(walletAddresses));
     }
 
     // Public endpoint to resolve nickname to Clerk ID
     @Operation(summary = "Get Clerk ID by nickname")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "OK"),
+        @ApiResponse(responseCode = "304", description = "Not modified (If-None-Match)"),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/public/by-nickname/{nickname}")
-    public ResponseEntity<String> getClerkIdByNickname(@PathVariable String nickname) {
+    public ResponseEntity<String> getClerkIdByNickname(@PathVariable String nickname, WebRequest request) {
+        // The ETag names the user it was issued for. If that user is cached and still has this
+        // nickname the answer hasn't changed, so revalidation skips the nickname query.
+        UserSnapshot hinted = userServ.getCachedSnapshot(UserETags.clerkIdOf(request.getHeader(HttpHeaders.IF_NONE_MATCH)));
+        if (hinted != null && nickname.equalsIgnoreCase(hinted.nickname())) {
+            return conditional(request, hinted, UserSnapshot::clerkId);
+        }
         String clerkId = userServ.getClerkIdByNickname(nickname);
-        if (clerkId == null) {
+        UserSnapshot u = clerkId != null ? userServ.getSnapshot(clerkId) : null;
+        if (u == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(clerkId);
+        return conditional(request, u, UserSnapshot::clerkId);
     }
 
     // Create or return existing user using clerkId from JWT
@@ -78,17 +203,17 @@ public class UserCont {
         @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError")
     })
     @PostMapping
-    public ResponseEntity<User> createOrGetUser(@RequestAttribute(name = "X-User-Id", required = false) String usid) {
+    public ResponseEntity<UserSnapshot> createOrGetUser(@RequestAttribute(name = "X-User-Id", required = false) String usid) {
         if (usid == null || usid.isBlank()) {
             return ResponseEntity.status(401).build();
         }
 
-        System.out.println("POST /users called; usid=" + usid);
+        log.debug("POST /users called");
 
         UserCreationResult result = userServ.createOrGetByClerkId(usid, null);
         if (result.isCreated()) {
-            User created = result.getUser();
-            return ResponseEntity.created(java.net.URI.create("/users/" + created.getId())).body(created);
+            UserSnapshot created = result.getUser();
+            return ResponseEntity.created(java.net.URI.create("/users/" + created.id())).body(created);
         }
         return ResponseEntity.ok(result.getUser());
     }
@@ -130,38 +255,71 @@ public class UserCont {
     // POST /users/themes - set themes for authenticated user
     @Operation(summary = "Set themes")
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "OK"),
+        @ApiResponse(responseCode = "200", description = "OK, ETag of the new version"),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
-        @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError")
+        @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError"),
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "409", description = "Concurrent updates, retry"),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current version"),
+        @ApiResponse(responseCode = "429", description = "Write-behind buffer full, retry later")
     })
     @PostMapping("/themes")
     public ResponseEntity<Void> setThemes(@RequestBody String[] themes,
-                                          @RequestAttribute(name = "X-User-Id", required = false) String userId) {
+                                          @RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                          @RequestHeader(name = "If-Match", required = false) String ifMatch) {
         if (userId == null) return ResponseEntity.status(401).build();
         if (themes == null || themes.length != 3) {
             return ResponseEntity.badRequest().build();
         }
-        userServ.setThemesByClerk(userId, themes[0], themes[1], themes[2]);
-        return ResponseEntity.ok().build();
+        UserVersion expected = UserETags.expected(ifMatch, userId);
+        try {
+            UserVersion version = userServ.setThemesByClerk(userId, themes[0], themes[1], themes[2], expected);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return written(userId, version);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict(expected);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(429).build();
+        }
     }
 
     // POST /users/nickname - set nickname for authenticated user
     @Operation(summary = "Set nickname")
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "OK"),
+        @ApiResponse(responseCode = "200", description = "OK, ETag of the new version"),
         @ApiResponse(responseCode = "400", description = "Invalid request"),
-        @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError")
+        @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError"),
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "409", description = "Nickname already taken or concurrent updates"),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current version"),
+        @ApiResponse(responseCode = "429", description = "Write-behind buffer full, retry later")
     })
     @PostMapping("/nickname")
     public ResponseEntity<Void> setNickname(@RequestBody Map<String, String> body,
-                                            @RequestAttribute(name = "X-User-Id", required = false) String userId) {
+                                            @RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                            @RequestHeader(name = "If-Match", required = false) String ifMatch) {
         if (userId == null) return ResponseEntity.status(401).build();
         String nickname = body.get("nickname");
         if (nickname == null || nickname.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
-        userServ.setNicknameByClerk(userId, nickname);
-        return ResponseEntity.ok().build();
+        UserVersion expected = UserETags.expected(ifMatch, userId);
+        try {
+            UserVersion version = userServ.setNicknameByClerk(userId, nickname, expected);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return written(userId, version);
+        } catch (DataIntegrityViolationException e) {
+            // unique index on lower(nickname)
+            return ResponseEntity.status(409).build();
+        } catch (OptimisticLockingFailureException e) {
+            return conflict(expected);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(429).build();
+        }
     }
 
     // DELETE user - delete authenticated user
@@ -177,29 +335,71 @@ public class UserCont {
         return ResponseEntity.noContent().build();
     }
 
-    //POST /users/verify-wallet - verify wallet for authenticated user
+    //POST /users/pol-wallet-challenge - issue a one-time message to sign with the wallet
+    @Operation(summary = "Issue Polygon wallet challenge")
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "Challenge issued"),
+        @ApiResponse(responseCode = "400", description = "Invalid wallet address"),
+        @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError"),
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "429", description = "Too many outstanding challenges, retry later")
+    })
+    @PostMapping("/pol-wallet-challenge")
+    public ResponseEntity<WalletChallengeResponse> issuePolygonWalletChallenge(@RequestBody Map<String, String> body, @RequestAttribute(name = "X-User-Id", required = false) String userId) {
+        if (userId == null) return ResponseEntity.status(401).build();
+        String walletAddress = body.get("walletAddress");
+        if (walletAddress == null || walletAddress.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            WalletChallenge challenge = userServ.issuePolygonWalletChallenge(userId, walletAddress);
+            return ResponseEntity.ok(new WalletChallengeResponse(challenge.nonce(), challenge.message(), challenge.expiresAt().toString()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(404).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(429).build();
+        }
+    }
+
+    //POST /users/pol-verify-wallet - verify a signed challenge for authenticated user
     @Operation(summary = "Verify Polygon wallet")
     @ApiResponses({
-        @ApiResponse(responseCode = "200", description = "Wallet verified"),
-        @ApiResponse(responseCode = "400", description = "Invalid request"),
+        @ApiResponse(responseCode = "200", description = "Wallet verified, ETag of the new version"),
+        @ApiResponse(responseCode = "400", description = "Invalid request, unknown/expired challenge or bad signature"),
         @ApiResponse(responseCode = "401", ref = "#/components/responses/UnauthorizedError"),
-        @ApiResponse(responseCode = "404", description = "User not found")
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "409", description = "Concurrent updates, retry"),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current version"),
+        @ApiResponse(responseCode = "429", description = "Too many verifications in progress, retry later")
     })
     @PostMapping("/pol-verify-wallet")
-    public ResponseEntity<Void> verifyPolygonWallet(@RequestBody Map<String, String> body, @RequestAttribute(name = "X-User-Id", required = false) String userId) {
+    public ResponseEntity<Void> verifyPolygonWallet(@RequestBody Map<String, String> body, @RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                                    @RequestHeader(name = "If-Match", required = false) String ifMatch) {
         if (userId == null) return ResponseEntity.status(401).build();
         String walletAddress = body.get("walletAddress");
-        String message = body.get("message");
+        String nonce = body.get("nonce");
         String signature = body.get("signature");
-        if (walletAddress == null || message == null || signature == null ||
-            walletAddress.isBlank() || message.isBlank() || signature.isBlank()) {
+        if (walletAddress == null || nonce == null || signature == null ||
+            walletAddress.isBlank() || nonce.isBlank() || signature.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
+        UserVersion expected = UserETags.expected(ifMatch, userId);
         try {
-            userServ.verifyPolygonWallet(userId, walletAddress, message, signature);
-            return ResponseEntity.ok().build();
+            // the signed message is the one stored with the challenge, not taken from the client
+            UserVersion version = userServ.verifyPolygonWallet(userId, walletAddress, nonce, signature, expected);
+            return written(userId, version);
+        } catch (OptimisticLockingFailureException e) {
+            return conflict(expected);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(404).build();
+        } catch (IllegalArgumentException e) {
+            // malformed address, unknown/expired challenge or signature that doesn't match it
+            return ResponseEntity.badRequest().build();
+        } catch (RejectedExecutionException e) {
+            // verification worker pool saturated, client should retry later
+            return ResponseEntity.status(429).build();
         }
     }
 
@@ -222,14 +422,17 @@ public class UserCont {
     @Operation(summary = "Get public Polygon wallet address")
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "OK"),
-        @ApiResponse(responseCode = "404", description = "User not found")
+        @ApiResponse(responseCode = "304", description = "Not modified (If-None-Match)"),
+        @ApiResponse(responseCode = "404", description = "User not found or has no wallet")
     })
     @GetMapping("/public/pol-wallet-addres")
-    public ResponseEntity<String> getPublicPolygonWalletAddress(@RequestParam String clerkId) {
-        String walletAddress = userServ.getPublicPolygonWalletAddress(clerkId);
-        if (walletAddress == null) {
+    public ResponseEntity<String> getPublicPolygonWalletAddress(@RequestParam String clerkId, WebRequest request) {
+        UserSnapshot u = userServ.getSnapshot(clerkId);
+        if (u == null || u.polygonWalletAddress() == null || u.polygonWalletAddress().isEmpty()) {
             return ResponseEntity.status(404).build();
         }
-        return ResponseEntity.ok(walletAddress);
+        return conditional(request, u, s -> WalletAddresses.toChecksum(s.polygonWalletAddress()));
     }
+
+    public record WalletChallengeResponse(String nonce, String message, String expiresAt) { }
 }
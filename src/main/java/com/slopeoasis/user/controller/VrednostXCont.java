@@ -1,5 +1,6 @@
 package com.slopeoasis.user.controller;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RestController;
 import com.slopeoasis.user.entity.VrednostX;
 import com.slopeoasis.user.service.VrednostXServ;
 
+@Profile("!reactive")
 @RestController
 @RequestMapping("/value")
 public class VrednostXCont {
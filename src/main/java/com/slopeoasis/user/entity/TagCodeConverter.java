@@ -0,0 +1,21 @@
+package com.slopeoasis.user.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps User.Tag to its smallint code, both ways through precomputed tables.
+ */
+@Converter
+public class TagCodeConverter implements AttributeConverter<User.Tag, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(User.Tag tag) {
+        return tag != null ? tag.code() : null;
+    }
+
+    @Override
+    public User.Tag convertToEntityAttribute(Short code) {
+        return User.Tag.fromCode(code);
+    }
+}
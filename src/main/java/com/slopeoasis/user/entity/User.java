@@ -1,14 +1,17 @@
 package com.slopeoasis.user.entity;
 
+import java.util.HashMap;
+import java.util.Map;
+
 //to so anotacije
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "users")
@@ -19,15 +22,23 @@ public class User {
     @Column(name = "clerk_id", unique = true, nullable = false)
     private String clerkId = "";
     private String nickname = "";
-    @Enumerated(EnumType.STRING)
+    // smallint codes (Tag.code()), see V7__theme_codes
+    @Convert(converter = TagCodeConverter.class)
     private Tag theme1;
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TagCodeConverter.class)
     private Tag theme2;
-    @Enumerated(EnumType.STRING)
+    @Convert(converter = TagCodeConverter.class)
     private Tag theme3;
+    // one bit per theme of the three slots, generated by the database
+    @Column(name = "theme_mask", insertable = false, updatable = false)
+    private short themeMask;
 
     private String polygonWalletAddress = "";
     private Boolean polygonWalletVerified = false;
+    // optimistic lock; the update queries in UserRepo check and increment it themselves
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
     // JPA requires a no-arg constructor
     public User() {
     }
@@ -57,6 +68,9 @@ public class User {
     public Tag getTheme3() {
         return theme3;
     }
+    public short getThemeMask() {
+        return themeMask;
+    }
 
     //set nickname function
     public void setNickname(String nickname) {
@@ -91,7 +105,13 @@ public class User {
         this.polygonWalletVerified = polygonWalletVerified;
     }
 
-    // Predefined tags/themes (aligned with Posts.Tag)
+    public Long getVersion() {
+        return version;
+    }
+
+    // Predefined tags/themes (aligned with Posts.Tag). Stored by code (the ordinal) in
+    // theme1..theme3 and as bit 1 << code in theme_mask: only append new values, never
+    // reorder or remove them.
     public enum Tag {
         ART,
         MUSIC,
@@ -101,7 +121,34 @@ public class User {
         PHOTO,
         MODEL_3D,
         FONT,
-        OTHER
+        OTHER;
+
+        private static final Tag[] BY_CODE = values();
+        private static final Map<String, Tag> BY_NAME = new HashMap<>();
+
+        static {
+            for (Tag t : BY_CODE) {
+                BY_NAME.put(t.name(), t);
+            }
+        }
+
+        public short code() {
+            return (short) ordinal();
+        }
+
+        public int bit() {
+            return 1 << ordinal();
+        }
+
+        // null for null and unknown codes
+        public static Tag fromCode(Short code) {
+            return code != null && code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        }
+
+        // exact name lookup without valueOf's exception; null for null, blank and unknown names
+        public static Tag fromName(String name) {
+            return name != null ? BY_NAME.get(name) : null;
+        }
     }
 
 }
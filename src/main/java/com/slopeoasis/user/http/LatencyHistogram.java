@@ -0,0 +1,45 @@
+package com.slopeoasis.user.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram (milliseconds). Recording is lock-free; a snapshot
+ * gives cumulative bucket counts ("le" style) plus count and sum.
+ */
+public class LatencyHistogram {
+    private static final long[] BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMillis = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long millis) {
+        int i = 0;
+        while (i < BOUNDS_MS.length && millis > BOUNDS_MS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        count.increment();
+        sumMillis.add(millis);
+    }
+
+    public Snapshot snapshot() {
+        Map<String, Long> cumulative = new LinkedHashMap<>();
+        long running = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            running += buckets[i].sum();
+            cumulative.put(i < BOUNDS_MS.length ? "le_" + BOUNDS_MS[i] + "ms" : "le_inf", running);
+        }
+        return new Snapshot(count.sum(), sumMillis.sum(), cumulative);
+    }
+
+    public record Snapshot(long count, long sumMillis, Map<String, Long> buckets) { }
+}
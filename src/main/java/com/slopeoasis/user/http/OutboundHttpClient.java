@@ -0,0 +1,221 @@
+package com.slopeoasis.user.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Shared client for calls to other services (Clerk). One java.net.http.HttpClient keeps
+ * pooled keep-alive connections and negotiates HTTP/2 where the upstream supports it.
+ *
+ * Each named upstream gets its own guard rails:
+ * - a request timeout on every call,
+ * - a bulkhead (semaphore) capping concurrent calls, so a slow upstream can't tie up
+ *   more than that many request threads,
+ * - a circuit breaker that opens after consecutive failures (I/O errors, timeouts, 5xx)
+ *   and lets a single trial call through once the open period is over,
+ * - a latency histogram, also published as the outbound.requests timer (tags upstream, outcome).
+ * Rejected calls (bulkhead full, circuit open) fail fast with RejectedExecutionException.
+ *
+ * Settings come from outbound.* properties and can be overridden per upstream with
+ * outbound.upstreams.<name>.*.
+ */
+@Component
+public class OutboundHttpClient {
+    private final HttpClient client;
+    private final Function<String, UpstreamSettings> settings;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OutboundHttpClient(Environment env, MeterRegistry meterRegistry) {
+        this(Duration.ofMillis(env.getProperty("outbound.connect-timeout-ms", Long.class, 2000L)),
+                name -> UpstreamSettings.from(env, name), meterRegistry);
+    }
+
+    public OutboundHttpClient(Duration connectTimeout, Function<String, UpstreamSettings> settings,
+                              MeterRegistry meterRegistry) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * GET with the upstream's timeout, bulkhead and circuit breaker. Idempotent, so
+     * connection errors (not timeouts) are retried up to the configured retry count.
+     * Non-2xx responses are returned as they are; 5xx count as failures for the breaker.
+     */
+    public HttpResponse<String> get(String upstream, URI uri, Map<String, String> headers) throws IOException, InterruptedException {
+        Upstream u = upstreams.computeIfAbsent(upstream, name -> new Upstream(name, settings.apply(name), meterRegistry));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(u.settings.requestTimeout()).GET();
+        headers.forEach(builder::header);
+        HttpRequest request = builder.build();
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return u.call(client, request);
+            } catch (HttpTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= u.settings.retries()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public Map<String, UpstreamStats> stats() {
+        Map<String, UpstreamStats> stats = new LinkedHashMap<>();
+        upstreams.forEach((name, u) -> stats.put(name, u.stats()));
+        return stats;
+    }
+
+    public record UpstreamSettings(Duration requestTimeout, int maxConcurrent, int failureThreshold,
+                                   Duration openDuration, int retries) {
+        static UpstreamSettings from(Environment env, String name) {
+            return new UpstreamSettings(
+                    Duration.ofMillis(property(env, name, "request-timeout-ms", 3000L)),
+                    property(env, name, "max-concurrent", 20L).intValue(),
+                    property(env, name, "circuit.failure-threshold", 5L).intValue(),
+                    Duration.ofSeconds(property(env, name, "circuit.open-seconds", 30L)),
+                    property(env, name, "retries", 1L).intValue());
+        }
+
+        private static Long property(Environment env, String name, String key, long fallback) {
+            Long global = env.getProperty("outbound." + key, Long.class, fallback);
+            return env.getProperty("outbound.upstreams." + name + "." + key, Long.class, global);
+        }
+    }
+
+    public record UpstreamStats(String circuit, int inFlight, long calls, long failures, long rejected,
+                                LatencyHistogram.Snapshot latency) { }
+
+    private static final class Upstream {
+        private final UpstreamSettings settings;
+        private final Semaphore bulkhead;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Timer successTimer;
+        private final Timer failureTimer;
+        private final Counter rejectedCounter;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean trialInFlight = new AtomicBoolean();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        // 0 = closed, otherwise epoch millis until which the circuit stays open
+        private volatile long openUntil;
+
+        Upstream(String name, UpstreamSettings settings, MeterRegistry registry) {
+            this.settings = settings;
+            this.bulkhead = new Semaphore(settings.maxConcurrent());
+            this.successTimer = requestTimer(registry, name, "success");
+            this.failureTimer = requestTimer(registry, name, "failure");
+            this.rejectedCounter = Counter.builder("outbound.rejected")
+                    .description("Calls refused by the bulkhead or an open circuit")
+                    .tag("upstream", name)
+                    .register(registry);
+        }
+
+        private static Timer requestTimer(MeterRegistry registry, String upstream, String outcome) {
+            return Timer.builder("outbound.requests")
+                    .tag("upstream", upstream)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+
+        HttpResponse<String> call(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+            boolean trial = admit();
+            if (!bulkhead.tryAcquire()) {
+                if (trial) {
+                    trialInFlight.set(false);
+                }
+                rejected.incrementAndGet();
+                rejectedCounter.increment();
+                throw new RejectedExecutionException("Too many concurrent calls to " + request.uri().getHost());
+            }
+            long start = System.nanoTime();
+            boolean ok = false;
+            try {
+                calls.incrementAndGet();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                ok = response.statusCode() < 500;
+                return response;
+            } finally {
+                bulkhead.release();
+                long elapsed = System.nanoTime() - start;
+                latency.record(elapsed / 1_000_000);
+                if (ok) {
+                    successTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    onSuccess();
+                } else {
+                    failureTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                    onFailure(trial);
+                }
+            }
+        }
+
+        // true when this call is the half-open trial
+        private boolean admit() {
+            long until = openUntil;
+            if (until == 0) {
+                return false;
+            }
+            if (System.currentTimeMillis() >= until && trialInFlight.compareAndSet(false, true)) {
+                return true;
+            }
+            rejected.incrementAndGet();
+            rejectedCounter.increment();
+            throw new RejectedExecutionException("Circuit open for upstream");
+        }
+
+        private void onSuccess() {
+            consecutiveFailures.set(0);
+            openUntil = 0;
+            trialInFlight.set(false);
+        }
+
+        private void onFailure(boolean trial) {
+            failures.incrementAndGet();
+            if (trial || consecutiveFailures.incrementAndGet() >= settings.failureThreshold()) {
+                openUntil = System.currentTimeMillis() + settings.openDuration().toMillis();
+            }
+            if (trial) {
+                trialInFlight.set(false);
+            }
+        }
+
+        UpstreamStats stats() {
+            long until = openUntil;
+            String circuit = until == 0 ? "CLOSED" : System.currentTimeMillis() >= until ? "HALF_OPEN" : "OPEN";
+            return new UpstreamStats(circuit, settings.maxConcurrent() - bulkhead.availablePermits(),
+                    calls.get(), failures.get(), rejected.get(), latency.snapshot());
+        }
+    }
+}
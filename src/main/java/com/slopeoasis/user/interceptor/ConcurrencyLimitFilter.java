@@ -0,0 +1,88 @@
+package com.slopeoasis.user.interceptor;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission limit for virtual-thread mode (spring.threads.virtual.enabled=true).
+ *
+ * With virtual threads Tomcat no longer caps concurrency through its worker pool: every
+ * accepted connection gets a thread, and thousands of them would pile up on the Hikari
+ * pool, each holding memory and timing out after DB_POOL_TIMEOUT_MS. This filter lets at
+ * most requests.max-in-flight requests (by default the Hikari pool size) run at once. A
+ * request that gets no permit within requests.acquire-timeout-ms is answered 429 with
+ * Retry-After instead of waiting.
+ *
+ * Health and actuator endpoints are not limited so probes keep answering under load.
+ */
+@Profile("!reactive")
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final long acquireTimeoutMs;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(@Value("${requests.max-in-flight:20}") int maxInFlight,
+                                  @Value("${requests.acquire-timeout-ms:1000}") long acquireTimeoutMs,
+                                  MeterRegistry meterRegistry) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.rejected = Counter.builder("requests.rejected")
+                .description("Requests turned away with 429 by the in-flight limit")
+                .register(meterRegistry);
+        Gauge.builder("requests.in_flight", this, f -> f.maxInFlight - f.permits.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("requests.waiting", permits, Semaphore::getQueueLength).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.startsWith("/actuator") || path.startsWith("/healthuser");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setHeader("Retry-After", "1");
+            response.setStatus(429);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.slopeoasis.user.interceptor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -10,8 +14,10 @@ import com.slopeoasis.user.clerk.ClerkTokenPayload;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 // Uses Clerk verifier for proper JWT validation Sets X-User-Id (usid) and X-Wallet-Address in request attributes
+@Profile("!reactive")
 @Component
 public class JwtInterceptor implements HandlerInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(JwtInterceptor.class);
 
     @Autowired
     private ClerkJwtVerifier clerkJwtVerifier;
@@ -37,13 +43,14 @@ public class JwtInterceptor implements HandlerInterceptor {
             
             // Set user ID and wallet in request attributes for controllers to use
             request.setAttribute("X-User-Id", payload.getUsid());
+            MDC.put(CorrelationIdFilter.MDC_USER_ID, payload.getUsid());
             if (payload.getWallet() != null && !payload.getWallet().isBlank()) {
                 request.setAttribute("X-Wallet-Address", payload.getWallet());
             }
             
             return true;
         } catch (Exception e) {
-            System.err.println("JWT verification failed: " + e.getMessage());
+            log.warn("JWT verification failed: {}", e.getMessage());
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
             response.getWriter().write("{\"error\": \"Invalid or expired token\"}");
@@ -0,0 +1,89 @@
+package com.slopeoasis.user.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.slopeoasis.user.clerk.ClerkJwtVerifier;
+import com.slopeoasis.user.clerk.ClerkTokenPayload;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive JwtInterceptor: same paths (/users/** except /users/public/**), same 401
+ * bodies, sets X-User-Id and X-Wallet-Address as exchange attributes.
+ */
+@Component
+@Profile("reactive")
+public class JwtWebFilter implements WebFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtWebFilter.class);
+    private static final PathPattern PROTECTED = PathPatternParser.defaultInstance.parse("/users/**");
+    private static final PathPattern PUBLIC = PathPatternParser.defaultInstance.parse("/users/public/**");
+
+    private final ClerkJwtVerifier clerkJwtVerifier;
+
+    public JwtWebFilter(ClerkJwtVerifier clerkJwtVerifier) {
+        this.clerkJwtVerifier = clerkJwtVerifier;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        PathContainer path = request.getPath().pathWithinApplication();
+        // Skip OPTIONS requests (CORS preflight) - they don't have Authorization header
+        if (!PROTECTED.matches(path) || PUBLIC.matches(path) || HttpMethod.OPTIONS.equals(request.getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return unauthorized(exchange, "Missing or invalid Authorization header");
+        }
+
+        String token = authHeader.substring(7);
+        // verify may wait for the first JWKS fetch and does RSA math on a token-cache miss,
+        // so it runs off the event loop
+        return Mono.fromCallable(() -> Optional.of(clerkJwtVerifier.verify(token)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.warn("JWT verification failed: {}", e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(payload -> {
+                    if (payload.isEmpty()) {
+                        return unauthorized(exchange, "Invalid or expired token");
+                    }
+                    ClerkTokenPayload p = payload.get();
+                    exchange.getAttributes().put("X-User-Id", p.getUsid());
+                    if (p.getWallet() != null && !p.getWallet().isBlank()) {
+                        exchange.getAttributes().put("X-Wallet-Address", p.getWallet());
+                    }
+                    return chain.filter(exchange);
+                });
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange, String error) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body = ("{\"error\": \"" + error + "\"}").getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
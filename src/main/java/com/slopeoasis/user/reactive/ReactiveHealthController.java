@@ -0,0 +1,65 @@
+package com.slopeoasis.user.reactive;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.slopeoasis.user.cache.ExpiringLruCache;
+import com.slopeoasis.user.clerk.ClerkJwtVerifier;
+import com.slopeoasis.user.http.OutboundHttpClient;
+import com.slopeoasis.user.web3j.WalletChallengeStore;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * HealthController for the "reactive" profile (probes hit /healthuser in both modes).
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/healthuser")
+public class ReactiveHealthController {
+
+    private final ClerkJwtVerifier clerkJwtVerifier;
+    private final ReactiveUserServ userServ;
+    private final OutboundHttpClient outboundHttpClient;
+
+    public ReactiveHealthController(ClerkJwtVerifier clerkJwtVerifier, ReactiveUserServ userServ,
+                                    OutboundHttpClient outboundHttpClient) {
+        this.clerkJwtVerifier = clerkJwtVerifier;
+        this.userServ = userServ;
+        this.outboundHttpClient = outboundHttpClient;
+    }
+
+    @GetMapping
+    public ResponseEntity<String> health() {
+        return ResponseEntity.ok("User-service backend is running!! (reactive)");
+    }
+
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, ExpiringLruCache.CacheStats>> caches() {
+        Map<String, ExpiringLruCache.CacheStats> stats = new LinkedHashMap<>();
+        stats.put("jwtTokens", clerkJwtVerifier.getTokenCacheStats());
+        stats.put("users", userServ.getUserCacheStats());
+        stats.put("walletOwners", userServ.getWalletOwnerCacheStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    // the JDBC store counts rows, keep that off the event loop
+    @GetMapping("/wallet-challenges")
+    public Mono<ResponseEntity<WalletChallengeStore.ChallengeStats>> walletChallenges() {
+        return Mono.fromCallable(() -> ResponseEntity.ok(userServ.getWalletChallengeStats()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // GET /healthuser/upstreams - circuit state, in-flight calls and latency histogram per upstream
+    @GetMapping("/upstreams")
+    public ResponseEntity<Map<String, OutboundHttpClient.UpstreamStats>> upstreams() {
+        return ResponseEntity.ok(outboundHttpClient.stats());
+    }
+}
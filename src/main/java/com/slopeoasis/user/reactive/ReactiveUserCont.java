@@ -0,0 +1,247 @@
+package com.slopeoasis.user.reactive;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.slopeoasis.user.controller.UserCont.WalletChallengeResponse;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+import com.slopeoasis.user.service.UserETags;
+import com.slopeoasis.user.service.UserServ;
+import com.slopeoasis.user.service.UserServ.PublicProfile;
+import com.slopeoasis.user.service.UserServ.WalletOwner;
+import com.slopeoasis.user.web3j.WalletAddresses;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux version of UserCont ("reactive" profile): same routes, bodies and status codes.
+ * X-User-Id / X-Wallet-Address are exchange attributes set by JwtWebFilter.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/users")
+@CrossOrigin(origins = "${CORS_ALLOWED_ORIGIN:http://localhost:3000}")
+public class ReactiveUserCont {
+
+    private final ReactiveUserServ userServ;
+    private final CacheControl publicCacheControl;
+
+    public ReactiveUserCont(ReactiveUserServ userServ,
+                            @Value("${users.public.max-age-seconds:30}") long publicMaxAgeSeconds) {
+        this.userServ = userServ;
+        this.publicCacheControl = CacheControl.maxAge(Duration.ofSeconds(publicMaxAgeSeconds)).cachePublic();
+    }
+
+    // Same conditional handling as UserCont: on a matching If-None-Match the body is not built
+    private <T> ResponseEntity<T> conditional(ServerWebExchange exchange, UserSnapshot u, Function<UserSnapshot, T> body) {
+        String etag = UserETags.of(u);
+        if (exchange.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(publicCacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(publicCacheControl).body(body.apply(u));
+    }
+
+    private static ResponseEntity<Void> written(String clerkId, UserVersion version) {
+        return ResponseEntity.ok().eTag(UserETags.of(clerkId, version)).build();
+    }
+
+    // 412 for a failed If-Match, 409 when the retries without one were exhausted
+    private static Mono<ResponseEntity<Void>> conflict(UserVersion expected) {
+        return Mono.just(ResponseEntity.status(expected != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping("/public/{clerkId}")
+    public Mono<ResponseEntity<PublicProfile>> getPublicProfile(@PathVariable String clerkId, ServerWebExchange exchange) {
+        return userServ.getSnapshot(clerkId)
+                .map(u -> conditional(exchange, u, PublicProfile::of))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/public/batch")
+    public Mono<ResponseEntity<Map<String, PublicProfile>>> getPublicProfiles(@RequestBody List<String> clerkIds) {
+        if (clerkIds == null || clerkIds.isEmpty() || clerkIds.size() > UserServ.MAX_BATCH_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return userServ.getPublicProfilesByClerkIds(clerkIds).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/public/by-wallet/{walletAddress}")
+    public Mono<ResponseEntity<WalletOwner>> getUserByWallet(@PathVariable String walletAddress) {
+        if (!WalletAddresses.isValid(walletAddress.trim())) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return userServ.getWalletOwner(walletAddress)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/public/by-wallet/batch")
+    public Mono<ResponseEntity<Map<String, WalletOwner>>> getUsersByWallets(@RequestBody List<String> walletAddresses) {
+        if (walletAddresses == null || walletAddresses.isEmpty() || walletAddresses.size() > UserServ.MAX_BATCH_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return userServ.getWalletOwners(walletAddresses).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/public/by-nickname/{nickname}")
+    public Mono<ResponseEntity<String>> getClerkIdByNickname(@PathVariable String nickname, ServerWebExchange exchange) {
+        // revalidation of a cached user that still has this nickname skips the nickname query
+        String hintedClerkId = UserETags.clerkIdOf(exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+        UserSnapshot hinted = userServ.getCachedSnapshot(hintedClerkId);
+        if (hinted != null && nickname.equalsIgnoreCase(hinted.nickname())) {
+            return Mono.just(conditional(exchange, hinted, UserSnapshot::clerkId));
+        }
+        return userServ.getClerkIdByNickname(nickname)
+                .flatMap(userServ::getSnapshot)
+                .map(u -> conditional(exchange, u, UserSnapshot::clerkId))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/public/pol-wallet-addres")
+    public Mono<ResponseEntity<String>> getPublicPolygonWalletAddress(@RequestParam String clerkId, ServerWebExchange exchange) {
+        return userServ.getSnapshot(clerkId)
+                // no wallet is a 404 like no user
+                .filter(u -> u.polygonWalletAddress() != null && !u.polygonWalletAddress().isEmpty())
+                .map(u -> conditional(exchange, u, s -> WalletAddresses.toChecksum(s.polygonWalletAddress())))
+                .defaultIfEmpty(ResponseEntity.status(404).build());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<UserSnapshot>> createOrGetUser(@RequestAttribute(name = "X-User-Id", required = false) String usid) {
+        if (usid == null || usid.isBlank()) {
+            return Mono.just(ResponseEntity.status(401).build());
+        }
+        return userServ.createOrGetByClerkId(usid).map(result -> result.created()
+                ? ResponseEntity.created(URI.create("/users/" + result.user().id())).body(result.user())
+                : ResponseEntity.ok(result.user()));
+    }
+
+    @GetMapping("/nickname")
+    public Mono<ResponseEntity<String>> getNickname(@RequestAttribute(name = "X-User-Id", required = false) String userId) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        return userServ.getNicknameByClerk(userId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/themes")
+    public Mono<ResponseEntity<String[]>> getThemes(@RequestAttribute(name = "X-User-Id", required = false) String userId) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        return userServ.getThemesByClerk(userId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/themes")
+    public Mono<ResponseEntity<Void>> setThemes(@RequestBody String[] themes,
+                                                @RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                                @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        if (themes == null || themes.length != 3) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        UserVersion expected = UserETags.expected(ifMatch, userId);
+        return userServ.setThemesByClerk(userId, themes[0], themes[1], themes[2], expected)
+                .map(version -> written(userId, version))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(OptimisticLockingFailureException.class, e -> conflict(expected));
+    }
+
+    @PostMapping("/nickname")
+    public Mono<ResponseEntity<Void>> setNickname(@RequestBody Map<String, String> body,
+                                                  @RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                                  @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        String nickname = body.get("nickname");
+        if (nickname == null || nickname.isBlank()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        UserVersion expected = UserETags.expected(ifMatch, userId);
+        return userServ.setNicknameByClerk(userId, nickname, expected)
+                .map(version -> written(userId, version))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                // unique index on lower(nickname)
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(409).build()))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> conflict(expected));
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<Void>> deleteUser(@RequestAttribute(name = "X-User-Id", required = false) String userId) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        return userServ.deleteUserByClerkId(userId).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/pol-wallet-challenge")
+    public Mono<ResponseEntity<WalletChallengeResponse>> issuePolygonWalletChallenge(@RequestBody Map<String, String> body,
+                                                                                     @RequestAttribute(name = "X-User-Id", required = false) String userId) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        String walletAddress = body.get("walletAddress");
+        if (walletAddress == null || walletAddress.isBlank()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return userServ.issuePolygonWalletChallenge(userId, walletAddress)
+                .map(c -> ResponseEntity.ok(new WalletChallengeResponse(c.nonce(), c.message(), c.expiresAt().toString())))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(errorStatus(e)).build()));
+    }
+
+    @PostMapping("/pol-verify-wallet")
+    public Mono<ResponseEntity<Void>> verifyPolygonWallet(@RequestBody Map<String, String> body,
+                                                          @RequestAttribute(name = "X-User-Id", required = false) String userId,
+                                                          @RequestHeader(name = "If-Match", required = false) String ifMatch) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        String walletAddress = body.get("walletAddress");
+        String nonce = body.get("nonce");
+        String signature = body.get("signature");
+        if (walletAddress == null || nonce == null || signature == null ||
+            walletAddress.isBlank() || nonce.isBlank() || signature.isBlank()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        UserVersion expected = UserETags.expected(ifMatch, userId);
+        return userServ.verifyPolygonWallet(userId, walletAddress, nonce, signature, expected)
+                .map(version -> written(userId, version))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> conflict(expected))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(errorStatus(e)).build()));
+    }
+
+    @GetMapping("/pol-wallet-status")
+    public Mono<ResponseEntity<Boolean>> getPolygonWalletStatus(@RequestAttribute(name = "X-User-Id", required = false) String userId) {
+        if (userId == null) return Mono.just(ResponseEntity.status(401).build());
+        return userServ.getPolygonWalletStatus(userId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.status(404).build());
+    }
+
+    // same exception -> status mapping as UserCont's wallet endpoints
+    private static int errorStatus(Throwable e) {
+        if (e instanceof IllegalStateException) return 404;
+        if (e instanceof IllegalArgumentException) return 400;
+        if (e instanceof RejectedExecutionException) return 429;
+        return 500;
+    }
+}
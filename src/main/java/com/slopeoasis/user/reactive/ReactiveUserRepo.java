@@ -0,0 +1,148 @@
+package com.slopeoasis.user.reactive;
+
+import java.util.Collection;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+import com.slopeoasis.user.repository.WalletOwnerRow;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of UserRepo, same statements on the same schema. Collections are
+ * bound as a single array parameter (= ANY(:ids)), so batch lookups reuse one statement
+ * whatever the batch size.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveUserRepo {
+    private static final String SNAPSHOT_COLUMNS =
+            "id, clerk_id, nickname, theme1, theme2, theme3, polygon_wallet_address, polygon_wallet_verified, version";
+
+    private final DatabaseClient db;
+
+    public ReactiveUserRepo(DatabaseClient db) {
+        this.db = db;
+    }
+
+    // Same create-or-get statement as UserRepo.insertOrGet; empty when a concurrent insert won
+    public Mono<UpsertedUser> insertOrGet(String clerkId) {
+        return db.sql("""
+                WITH ins AS (
+                    INSERT INTO users (clerk_id, nickname, polygon_wallet_address, polygon_wallet_verified)
+                    VALUES (:clerkId, '', '', false)
+                    ON CONFLICT (clerk_id) DO NOTHING
+                    RETURNING id, clerk_id, nickname, theme1, theme2, theme3, polygon_wallet_address, polygon_wallet_verified, version
+                )
+                SELECT *, true AS created FROM ins
+                UNION ALL
+                SELECT id, clerk_id, nickname, theme1, theme2, theme3,
+                       polygon_wallet_address, polygon_wallet_verified, version, false
+                FROM users
+                WHERE clerk_id = :clerkId AND NOT EXISTS (SELECT 1 FROM ins)
+                """)
+                .bind("clerkId", clerkId)
+                .map(row -> new UpsertedUser(snapshot(row), Boolean.TRUE.equals(row.get("created", Boolean.class))))
+                .one();
+    }
+
+    // Optimistic updates like UserRepo: 0 rows when the row is gone or no longer has the version
+    public Mono<Long> updateNicknameById(int id, long version, String nickname) {
+        return db.sql("UPDATE users SET nickname = :nickname, version = version + 1 WHERE id = :id AND version = :version")
+                .bind("nickname", nickname)
+                .bind("id", id)
+                .bind("version", version)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<Long> updateThemesById(int id, long version, User.Tag theme1, User.Tag theme2, User.Tag theme3) {
+        DatabaseClient.GenericExecuteSpec spec = db
+                .sql("UPDATE users SET theme1 = :theme1, theme2 = :theme2, theme3 = :theme3, version = version + 1"
+                        + " WHERE id = :id AND version = :version")
+                .bind("id", id)
+                .bind("version", version);
+        spec = bindTag(spec, "theme1", theme1);
+        spec = bindTag(spec, "theme2", theme2);
+        spec = bindTag(spec, "theme3", theme3);
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Long> updateVerifiedPolygonWalletById(int id, long version, String walletAddress) {
+        return db.sql("UPDATE users SET polygon_wallet_address = :walletAddress, polygon_wallet_verified = true, version = version + 1"
+                        + " WHERE id = :id AND version = :version")
+                .bind("walletAddress", walletAddress)
+                .bind("id", id)
+                .bind("version", version)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<UserVersion> findVersionByClerkId(String clerkId) {
+        return db.sql("SELECT id, version FROM users WHERE clerk_id = :clerkId")
+                .bind("clerkId", clerkId)
+                .map(row -> new UserVersion(row.get("id", Integer.class), row.get("version", Long.class)))
+                .one();
+    }
+
+    public Mono<Long> deleteByClerkId(String clerkId) {
+        return db.sql("DELETE FROM users WHERE clerk_id = :clerkId")
+                .bind("clerkId", clerkId)
+                .fetch().rowsUpdated();
+    }
+
+    public Mono<UserSnapshot> findSnapshotByClerkId(String clerkId) {
+        return db.sql("SELECT " + SNAPSHOT_COLUMNS + " FROM users WHERE clerk_id = :clerkId")
+                .bind("clerkId", clerkId)
+                .map(ReactiveUserRepo::snapshot)
+                .one();
+    }
+
+    public Flux<UserSnapshot> findSnapshotsByClerkIdIn(Collection<String> clerkIds) {
+        return db.sql("SELECT " + SNAPSHOT_COLUMNS + " FROM users WHERE clerk_id = ANY(:clerkIds)")
+                .bind("clerkIds", clerkIds.toArray(String[]::new))
+                .map(ReactiveUserRepo::snapshot)
+                .all();
+    }
+
+    // addresses must already be normalized (lowercase); oldest owner first
+    public Flux<WalletOwnerRow> findVerifiedWalletOwners(Collection<String> addresses) {
+        return db.sql("SELECT polygon_wallet_address, clerk_id FROM users"
+                        + " WHERE polygon_wallet_address = ANY(:addresses) AND polygon_wallet_verified = true ORDER BY id")
+                .bind("addresses", addresses.toArray(String[]::new))
+                .map(row -> new WalletOwnerRow(row.get("polygon_wallet_address", String.class), row.get("clerk_id", String.class)))
+                .all();
+    }
+
+    public Mono<String> findClerkIdByNickname(String nickname) {
+        return db.sql("SELECT clerk_id FROM users WHERE lower(nickname) = lower(:nickname) AND nickname <> ''")
+                .bind("nickname", nickname)
+                .map(row -> row.get("clerk_id", String.class))
+                .first();
+    }
+
+    private static UserSnapshot snapshot(Readable row) {
+        return new UserSnapshot(
+                row.get("id", Integer.class),
+                row.get("clerk_id", String.class),
+                row.get("nickname", String.class),
+                User.Tag.fromCode(row.get("theme1", Short.class)),
+                User.Tag.fromCode(row.get("theme2", Short.class)),
+                User.Tag.fromCode(row.get("theme3", Short.class)),
+                row.get("polygon_wallet_address", String.class),
+                row.get("polygon_wallet_verified", Boolean.class),
+                row.get("version", Long.class));
+    }
+
+    // R2DBC needs an explicit type for NULL binds
+    private static DatabaseClient.GenericExecuteSpec bindTag(DatabaseClient.GenericExecuteSpec spec, String name, User.Tag tag) {
+        return tag != null ? spec.bind(name, tag.code()) : spec.bindNull(name, Short.class);
+    }
+
+    public record UpsertedUser(UserSnapshot user, boolean created) { }
+}
@@ -0,0 +1,355 @@
+package com.slopeoasis.user.reactive;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.slopeoasis.user.cache.CacheMetrics;
+import com.slopeoasis.user.cache.ExpiringLruCache;
+import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+import com.slopeoasis.user.service.UserServ.PublicProfile;
+import com.slopeoasis.user.service.UserServ.WalletOwner;
+import com.slopeoasis.user.web3j.WalletAddresses;
+import com.slopeoasis.user.web3j.WalletChallenge;
+import com.slopeoasis.user.web3j.WalletChallengeStore;
+import com.slopeoasis.user.web3j.WalletVerificationService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of UserServ for the "reactive" profile. Same caching rules
+ * (snapshot and wallet-owner caches with negative entries, invalidated on writes); the
+ * database is reached through ReactiveUserRepo. Work that blocks (signature recovery,
+ * the JDBC challenge store) is moved off the event loop to the bounded-elastic scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserServ {
+    private final ReactiveUserRepo userRepo;
+    private final WalletVerificationService walletVerificationService;
+    private final WalletChallengeStore walletChallengeStore;
+    private final ExpiringLruCache<String, Optional<UserSnapshot>> userCache;
+    private final ExpiringLruCache<String, Optional<String>> walletOwnerCache;
+    private final long cacheTtlMillis;
+    private final long negativeCacheTtlMillis;
+    private final int maxWriteRetries;
+
+    public ReactiveUserServ(ReactiveUserRepo userRepo,
+                            WalletVerificationService walletVerificationService,
+                            WalletChallengeStore walletChallengeStore,
+                            @Value("${users.cache.max-size:50000}") int cacheMaxSize,
+                            @Value("${users.cache.ttl-seconds:60}") long cacheTtlSeconds,
+                            @Value("${users.cache.negative-ttl-seconds:10}") long negativeCacheTtlSeconds,
+                            @Value("${users.write.max-retries:3}") int maxWriteRetries,
+                            MeterRegistry meterRegistry) {
+        this.userRepo = userRepo;
+        this.walletVerificationService = walletVerificationService;
+        this.walletChallengeStore = walletChallengeStore;
+        this.userCache = new ExpiringLruCache<>(cacheMaxSize);
+        this.walletOwnerCache = new ExpiringLruCache<>(cacheMaxSize);
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+        this.negativeCacheTtlMillis = negativeCacheTtlSeconds * 1000;
+        this.maxWriteRetries = maxWriteRetries;
+        CacheMetrics.bind(meterRegistry, "users", userCache);
+        CacheMetrics.bind(meterRegistry, "walletOwners", walletOwnerCache);
+    }
+
+    // Read-through lookup of the user snapshot, empty when the user does not exist
+    private Mono<UserSnapshot> findSnapshot(String clerkId) {
+        Optional<UserSnapshot> cached = userCache.get(clerkId);
+        if (cached != null) {
+            return Mono.justOrEmpty(cached);
+        }
+        // a write finishing while we read must not be overwritten by what we read
+        long stamp = userCache.invalidationStamp(clerkId);
+        return userRepo.findSnapshotByClerkId(clerkId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(loaded -> cacheSnapshot(clerkId, loaded, stamp))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private void cacheSnapshot(String clerkId, Optional<UserSnapshot> snapshot) {
+        long ttl = snapshot.isPresent() ? cacheTtlMillis : negativeCacheTtlMillis;
+        userCache.put(clerkId, snapshot, System.currentTimeMillis() + ttl);
+    }
+
+    private void cacheSnapshot(String clerkId, Optional<UserSnapshot> snapshot, long stamp) {
+        long ttl = snapshot.isPresent() ? cacheTtlMillis : negativeCacheTtlMillis;
+        userCache.putIfNotInvalidatedSince(clerkId, snapshot, System.currentTimeMillis() + ttl, stamp);
+    }
+
+    // Snapshots for many clerkIds: cached ones first, the rest with a single query
+    private Mono<Map<String, UserSnapshot>> findSnapshots(Collection<String> clerkIds) {
+        Map<String, UserSnapshot> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String clerkId : clerkIds) {
+            Optional<UserSnapshot> cached = userCache.get(clerkId);
+            if (cached == null) {
+                missing.add(clerkId);
+            } else {
+                cached.ifPresent(u -> found.put(clerkId, u));
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(found);
+        }
+        long[] stamps = missing.stream().mapToLong(userCache::invalidationStamp).toArray();
+        return userRepo.findSnapshotsByClerkIdIn(missing)
+                .collectMap(UserSnapshot::clerkId)
+                .map(loaded -> {
+                    for (int i = 0; i < missing.size(); i++) {
+                        cacheSnapshot(missing.get(i), Optional.ofNullable(loaded.get(missing.get(i))), stamps[i]);
+                    }
+                    found.putAll(loaded);
+                    return found;
+                });
+    }
+
+    public ExpiringLruCache.CacheStats getUserCacheStats() {
+        return userCache.stats();
+    }
+
+    public ExpiringLruCache.CacheStats getWalletOwnerCacheStats() {
+        return walletOwnerCache.stats();
+    }
+
+    public WalletChallengeStore.ChallengeStats getWalletChallengeStats() {
+        return walletChallengeStore.stats();
+    }
+
+    // Like UserServ.createOrGetByClerkId: existing users come from the cache or one SELECT,
+    // only a missing one is upserted
+    public Mono<ReactiveUserRepo.UpsertedUser> createOrGetByClerkId(String clerkId) {
+        return findSnapshot(clerkId)
+                .map(u -> new ReactiveUserRepo.UpsertedUser(u, false))
+                .switchIfEmpty(Mono.defer(() -> userRepo.insertOrGet(clerkId)
+                        // lost the race to a concurrent insert that committed after our statement started
+                        .switchIfEmpty(Mono.defer(() -> userRepo.findSnapshotByClerkId(clerkId)
+                                .map(u -> new ReactiveUserRepo.UpsertedUser(u, false))))
+                        .doOnNext(result -> cacheSnapshot(clerkId, Optional.of(result.user())))));
+    }
+
+    // Snapshot behind the public endpoints, which derive their ETag from its version
+    public Mono<UserSnapshot> getSnapshot(String clerkId) {
+        return findSnapshot(clerkId);
+    }
+
+    // Cache only, never touches the DB; null when not cached (or cached as unknown)
+    public UserSnapshot getCachedSnapshot(String clerkId) {
+        if (clerkId == null) {
+            return null;
+        }
+        Optional<UserSnapshot> cached = userCache.get(clerkId);
+        return cached != null ? cached.orElse(null) : null;
+    }
+
+    public Mono<Map<String, PublicProfile>> getPublicProfilesByClerkIds(Collection<String> clerkIds) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        for (String clerkId : clerkIds) {
+            if (clerkId != null && !clerkId.isBlank()) {
+                ids.add(clerkId);
+            }
+        }
+        return findSnapshots(ids).map(found -> {
+            Map<String, PublicProfile> result = new LinkedHashMap<>();
+            for (String clerkId : ids) {
+                UserSnapshot u = found.get(clerkId);
+                if (u != null) {
+                    result.put(clerkId, PublicProfile.of(u));
+                }
+            }
+            return result;
+        });
+    }
+
+    // Throws IllegalArgumentException for malformed addresses
+    public Mono<WalletOwner> getWalletOwner(String walletAddress) {
+        String address = WalletAddresses.normalize(walletAddress);
+        return getWalletOwners(List.of(address)).flatMap(owners -> Mono.justOrEmpty(owners.get(address)));
+    }
+
+    public Mono<Map<String, WalletOwner>> getWalletOwners(Collection<String> walletAddresses) {
+        LinkedHashSet<String> addresses = new LinkedHashSet<>();
+        for (String a : walletAddresses) {
+            if (a != null && WalletAddresses.isValid(a.trim())) {
+                addresses.add(WalletAddresses.normalize(a));
+            }
+        }
+
+        Map<String, String> owners = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String address : addresses) {
+            Optional<String> cached = walletOwnerCache.get(address);
+            if (cached == null) {
+                missing.add(address);
+            } else {
+                cached.ifPresent(clerkId -> owners.put(address, clerkId));
+            }
+        }
+        long[] stamps = missing.stream().mapToLong(walletOwnerCache::invalidationStamp).toArray();
+        Mono<Map<String, String>> resolved = missing.isEmpty()
+                ? Mono.just(owners)
+                : userRepo.findVerifiedWalletOwners(missing)
+                        .doOnNext(row -> owners.putIfAbsent(row.polygonWalletAddress(), row.clerkId()))
+                        .then(Mono.fromSupplier(() -> {
+                            long now = System.currentTimeMillis();
+                            for (int i = 0; i < missing.size(); i++) {
+                                String clerkId = owners.get(missing.get(i));
+                                walletOwnerCache.putIfNotInvalidatedSince(missing.get(i), Optional.ofNullable(clerkId),
+                                        now + (clerkId != null ? cacheTtlMillis : negativeCacheTtlMillis), stamps[i]);
+                            }
+                            return owners;
+                        }));
+
+        return resolved.flatMap(o -> findSnapshots(new LinkedHashSet<>(o.values())).map(users -> {
+            Map<String, WalletOwner> result = new LinkedHashMap<>();
+            for (String address : addresses) {
+                UserSnapshot u = users.get(o.get(address));
+                // the user snapshot is authoritative, skip owners whose wallet changed meanwhile
+                if (u != null && address.equals(u.polygonWalletAddress()) && Boolean.TRUE.equals(u.polygonWalletVerified())) {
+                    result.put(address, new WalletOwner(u.clerkId(), u.nickname()));
+                }
+            }
+            return result;
+        }));
+    }
+
+    public Mono<String> getNicknameByClerk(String clerkId) {
+        return findSnapshot(clerkId).map(UserSnapshot::nickname);
+    }
+
+    public Mono<String> getClerkIdByNickname(String nickname) {
+        if (nickname == null || nickname.isBlank()) return Mono.empty();
+        return userRepo.findClerkIdByNickname(nickname);
+    }
+
+    public Mono<String[]> getThemesByClerk(String clerkId) {
+        return findSnapshot(clerkId).map(u -> new String[]{
+            u.theme1() != null ? u.theme1().name() : null,
+            u.theme2() != null ? u.theme2().name() : null,
+            u.theme3() != null ? u.theme3().name() : null
+        });
+    }
+
+    // Same rules as UserServ.updateVersioned: emits the new row version, empty when the user
+    // does not exist, OptimisticLockingFailureException on conflict
+    private Mono<UserVersion> updateVersioned(String clerkId, UserVersion expected, VersionedUpdate update) {
+        Mono<UserVersion> at;
+        if (expected != null) {
+            at = Mono.just(expected);
+        } else {
+            UserSnapshot cached = getCachedSnapshot(clerkId);
+            at = cached != null ? Mono.just(new UserVersion(cached.id(), cached.version()))
+                    : userRepo.findVersionByClerkId(clerkId);
+        }
+        return at.flatMap(v -> attemptUpdate(clerkId, expected, update, v, 0));
+    }
+
+    private Mono<UserVersion> attemptUpdate(String clerkId, UserVersion expected, VersionedUpdate update,
+                                            UserVersion at, int attempt) {
+        return update.apply(at.id(), at.version()).flatMap(updated -> {
+            userCache.invalidate(clerkId);
+            if (updated > 0) {
+                return Mono.just(new UserVersion(at.id(), at.version() + 1));
+            }
+            return userRepo.findVersionByClerkId(clerkId).flatMap(current -> {
+                if (expected != null || attempt >= maxWriteRetries) {
+                    return Mono.error(new OptimisticLockingFailureException("User " + clerkId + " was modified concurrently"));
+                }
+                return attemptUpdate(clerkId, expected, update, current, attempt + 1);
+            });
+        });
+    }
+
+    @FunctionalInterface
+    private interface VersionedUpdate {
+        // emits the rows updated, 0 when the row is gone or no longer at the version
+        Mono<Long> apply(int id, long version);
+    }
+
+    // emits the new version, empty when the user does not exist
+    public Mono<UserVersion> setThemesByClerk(String clerkId, String theme1, String theme2, String theme3, UserVersion expected) {
+        User.Tag t1 = tag(theme1);
+        User.Tag t2 = tag(theme2);
+        User.Tag t3 = tag(theme3);
+        return updateVersioned(clerkId, expected, (id, v) -> userRepo.updateThemesById(id, v, t1, t2, t3));
+    }
+
+    // unknown, blank and "null" themes clear the slot
+    private static User.Tag tag(String tag) {
+        return User.Tag.fromName(tag);
+    }
+
+    // emits the new version, empty when the user does not exist, DataIntegrityViolationException when the nickname is taken
+    public Mono<UserVersion> setNicknameByClerk(String clerkId, String nickname, UserVersion expected) {
+        return updateVersioned(clerkId, expected, (id, v) -> userRepo.updateNicknameById(id, v, nickname));
+    }
+
+    public Mono<Void> deleteUserByClerkId(String clerkId) {
+        return findSnapshot(clerkId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(before -> userRepo.deleteByClerkId(clerkId).doOnNext(deleted -> {
+                    userCache.invalidate(clerkId);
+                    before.ifPresent(u -> walletOwnerCache.invalidate(u.polygonWalletAddress()));
+                }))
+                .then();
+    }
+
+    // errors: IllegalStateException (no user), IllegalArgumentException (bad address), RejectedExecutionException (full)
+    public Mono<WalletChallenge> issuePolygonWalletChallenge(String clerkId, String walletAddress) {
+        return Mono.fromCallable(() -> WalletAddresses.normalize(walletAddress))
+                .flatMap(address -> findSnapshot(clerkId)
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("User not found")))
+                        .flatMap(u -> Mono.fromCallable(() -> walletChallengeStore.issue(clerkId, address))
+                                .subscribeOn(Schedulers.boundedElastic())));
+    }
+
+    // emits the new version of the user row
+    public Mono<UserVersion> verifyPolygonWallet(String clerkId, String walletAddress, String nonce, String signature, UserVersion expected) {
+        return Mono.fromCallable(() -> WalletAddresses.normalize(walletAddress))
+                .flatMap(address -> findSnapshot(clerkId)
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("User not found")))
+                        .flatMap(before -> Mono.fromCallable(() -> {
+                            if (expected != null && (!before.id().equals(expected.id()) || before.version() > expected.version())) {
+                                throw new OptimisticLockingFailureException("User " + clerkId + " was modified concurrently");
+                            }
+                            // same checks as UserServ.verifyPolygonWallet, they block so run them off the event loop
+                            WalletChallenge challenge = walletChallengeStore.consume(nonce);
+                            if (challenge == null || !challenge.clerkId().equals(clerkId) || !challenge.walletAddress().equals(address)) {
+                                throw new IllegalArgumentException("Unknown, expired or foreign wallet challenge");
+                            }
+                            if (!walletVerificationService.verify(challenge.message(), signature, address)) {
+                                throw new IllegalArgumentException("Wallet ownership verification failed");
+                            }
+                            return before;
+                        }).subscribeOn(Schedulers.boundedElastic()))
+                        .flatMap(before -> updateVersioned(clerkId, expected,
+                                        (id, v) -> userRepo.updateVerifiedPolygonWalletById(id, v, address))
+                                .doOnNext(version -> {
+                                    walletOwnerCache.invalidate(address);
+                                    walletOwnerCache.invalidate(before.polygonWalletAddress());
+                                })
+                                .switchIfEmpty(Mono.error(() -> new IllegalStateException("User not found")))));
+    }
+
+    public Mono<Boolean> getPolygonWalletStatus(String clerkId) {
+        return findSnapshot(clerkId).mapNotNull(UserSnapshot::polygonWalletVerified);
+    }
+}
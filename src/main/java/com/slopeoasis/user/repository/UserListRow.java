@@ -0,0 +1,13 @@
+package com.slopeoasis.user.repository;
+
+/**
+ * Row of the keyset-paginated listing and nickname search in UserRepo. nicknameKey is
+ * lower(nickname) as the database computed it, the sort key of the search.
+ */
+public interface UserListRow {
+    Integer getId();
+    String getClerkId();
+    String getNickname();
+    String getPolygonWalletAddress();
+    String getNicknameKey();
+}
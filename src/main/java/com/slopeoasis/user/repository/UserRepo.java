@@ -1,12 +1,140 @@
 package com.slopeoasis.user.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.slopeoasis.user.entity.User;
 
 public interface UserRepo extends JpaRepository<User, Integer> {
     Optional<User> findByClerkId(String clerkId);
-    Optional<User> findByNickname(String nickname);
+
+    // Create-or-get in one statement. Inserts the user unless clerk_id already exists and
+    // returns the row with created=true/false. When a concurrent insert of the same
+    // clerk_id wins, the row is not visible to this statement's snapshot and nothing is
+    // returned; the caller then simply reads it.
+    @Transactional
+    @Query(value = """
+            WITH ins AS (
+                INSERT INTO users (clerk_id, nickname, polygon_wallet_address, polygon_wallet_verified)
+                VALUES (:clerkId, '', '', false)
+                ON CONFLICT (clerk_id) DO NOTHING
+                RETURNING id, clerk_id, nickname, theme1, theme2, theme3, polygon_wallet_address, polygon_wallet_verified, version
+            )
+            SELECT id AS "id", clerk_id AS "clerkId", nickname AS "nickname",
+                   theme1 AS "theme1", theme2 AS "theme2", theme3 AS "theme3",
+                   polygon_wallet_address AS "polygonWalletAddress",
+                   polygon_wallet_verified AS "polygonWalletVerified", version AS "version", true AS "created"
+            FROM ins
+            UNION ALL
+            SELECT id, clerk_id, nickname, theme1, theme2, theme3,
+                   polygon_wallet_address, polygon_wallet_verified, version, false
+            FROM users
+            WHERE clerk_id = :clerkId AND NOT EXISTS (SELECT 1 FROM ins)
+            """, nativeQuery = true)
+    Optional<UserUpsertRow> insertOrGet(@Param("clerkId") String clerkId);
+
+    // Partial updates: one UPDATE touching only the changed columns, no entity load.
+    // Optimistic: applied only while the row (by id, so not a re-created user with the same
+    // clerkId) still has the expected version, which they increment. The returned row count
+    // is 0 when the row is gone or was changed meanwhile.
+    @Transactional
+    @Modifying
+    @Query("update User u set u.nickname = :nickname, u.version = u.version + 1"
+            + " where u.id = :id and u.version = :version")
+    int updateNicknameById(@Param("id") int id, @Param("version") long version,
+                           @Param("nickname") String nickname);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.theme1 = :theme1, u.theme2 = :theme2, u.theme3 = :theme3, u.version = u.version + 1"
+            + " where u.id = :id and u.version = :version")
+    int updateThemesById(@Param("id") int id, @Param("version") long version,
+                         @Param("theme1") User.Tag theme1, @Param("theme2") User.Tag theme2,
+                         @Param("theme3") User.Tag theme3);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.polygonWalletAddress = :walletAddress, u.polygonWalletVerified = true, u.version = u.version + 1"
+            + " where u.id = :id and u.version = :version")
+    int updateVerifiedPolygonWalletById(@Param("id") int id, @Param("version") long version,
+                                        @Param("walletAddress") String walletAddress);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.slopeoasis.user.repository.UserVersion(u.id, u.version) from User u where u.clerkId = :clerkId")
+    Optional<UserVersion> findVersionByClerkId(@Param("clerkId") String clerkId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.clerkId = :clerkId")
+    int deleteByClerkId(@Param("clerkId") String clerkId);
+
+    // Read paths below select into DTOs/scalars, nothing ends up in the persistence context
+    @Transactional(readOnly = true)
+    @Query("select new com.slopeoasis.user.repository.UserSnapshot(u.id, u.clerkId, u.nickname, u.theme1, u.theme2, u.theme3,"
+            + " u.polygonWalletAddress, u.polygonWalletVerified, u.version) from User u where u.clerkId = :clerkId")
+    Optional<UserSnapshot> findSnapshotByClerkId(@Param("clerkId") String clerkId);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.slopeoasis.user.repository.UserSnapshot(u.id, u.clerkId, u.nickname, u.theme1, u.theme2, u.theme3,"
+            + " u.polygonWalletAddress, u.polygonWalletVerified, u.version) from User u where u.clerkId in :clerkIds")
+    List<UserSnapshot> findSnapshotsByClerkIdIn(@Param("clerkIds") Collection<String> clerkIds);
+
+    // addresses must already be normalized (lowercase); oldest owner first if several users verified the same wallet
+    @Transactional(readOnly = true)
+    @Query("select new com.slopeoasis.user.repository.WalletOwnerRow(u.polygonWalletAddress, u.clerkId) from User u"
+            + " where u.polygonWalletAddress in :addresses and u.polygonWalletVerified = true order by u.id")
+    List<WalletOwnerRow> findVerifiedWalletOwners(@Param("addresses") Collection<String> addresses);
+
+    // Keyset pages: the next page starts after the last key of the previous one, so every page
+    // is one index range scan of `limit` rows, however deep it is (no OFFSET)
+    @Transactional(readOnly = true)
+    @Query(value = """
+            SELECT id AS "id", clerk_id AS "clerkId", nickname AS "nickname",
+                   polygon_wallet_address AS "polygonWalletAddress", lower(nickname) AS "nicknameKey"
+            FROM users
+            WHERE id > :afterId
+            ORDER BY id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UserListRow> findPageAfterId(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    // the rows of one page of ThemeIndex matches
+    @Transactional(readOnly = true)
+    @Query(value = """
+            SELECT id AS "id", clerk_id AS "clerkId", nickname AS "nickname",
+                   polygon_wallet_address AS "polygonWalletAddress", lower(nickname) AS "nicknameKey"
+            FROM users
+            WHERE id IN (:ids)
+            ORDER BY id
+            """, nativeQuery = true)
+    List<UserListRow> findListRowsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Nicknames in [prefix, upper) after the cursor key, in byte order (users_nickname_prefix_idx).
+    // A range rather than LIKE, so the generic plan of the prepared statement still uses the index.
+    @Transactional(readOnly = true)
+    @Query(value = """
+            SELECT id AS "id", clerk_id AS "clerkId", nickname AS "nickname",
+                   polygon_wallet_address AS "polygonWalletAddress", lower(nickname) AS "nicknameKey"
+            FROM users
+            WHERE nickname <> ''
+              AND lower(nickname) COLLATE "C" >= :prefix
+              AND lower(nickname) COLLATE "C" < :upper
+              AND lower(nickname) COLLATE "C" > :after
+            ORDER BY lower(nickname) COLLATE "C"
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UserListRow> findNicknamePrefixPage(@Param("prefix") String prefix, @Param("upper") String upper,
+                                             @Param("after") String after, @Param("limit") int limit);
+
+    // case-insensitive, matches the partial unique index on lower(nickname) where nickname <> ''
+    @Transactional(readOnly = true)
+    @Query("select u.clerkId from User u where lower(u.nickname) = lower(:nickname) and u.nickname <> ''")
+    Optional<String> findClerkIdByNickname(@Param("nickname") String nickname);
 }
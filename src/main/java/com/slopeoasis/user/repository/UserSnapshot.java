@@ -0,0 +1,19 @@
+package com.slopeoasis.user.repository;
+
+import com.slopeoasis.user.entity.User;
+
+/**
+ * Immutable copy of a user row, safe to share between threads and keep in caches.
+ * Also used as a DTO projection in UserRepo, so reads don't create managed entities.
+ */
+public record UserSnapshot(
+        Integer id,
+        String clerkId,
+        String nickname,
+        User.Tag theme1,
+        User.Tag theme2,
+        User.Tag theme3,
+        String polygonWalletAddress,
+        Boolean polygonWalletVerified,
+        Long version) {
+}
@@ -0,0 +1,27 @@
+package com.slopeoasis.user.repository;
+
+import com.slopeoasis.user.entity.User;
+
+/**
+ * Row returned by UserRepo.insertOrGet: the user's columns plus whether the
+ * row was inserted by that statement.
+ */
+public interface UserUpsertRow {
+    Integer getId();
+    String getClerkId();
+    String getNickname();
+    // smallint theme codes, see User.Tag.code()
+    Short getTheme1();
+    Short getTheme2();
+    Short getTheme3();
+    String getPolygonWalletAddress();
+    Boolean getPolygonWalletVerified();
+    Long getVersion();
+    Boolean getCreated();
+
+    default UserSnapshot toSnapshot() {
+        return new UserSnapshot(getId(), getClerkId(), getNickname(),
+                User.Tag.fromCode(getTheme1()), User.Tag.fromCode(getTheme2()), User.Tag.fromCode(getTheme3()),
+                getPolygonWalletAddress(), getPolygonWalletVerified(), getVersion());
+    }
+}
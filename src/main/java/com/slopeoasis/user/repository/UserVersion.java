@@ -0,0 +1,8 @@
+package com.slopeoasis.user.repository;
+
+/**
+ * Row id and version of a user, what the conditional updates check. Ids are never reused,
+ * so the pair names one state of one row even across a delete and re-signup of the clerkId.
+ */
+public record UserVersion(Integer id, Long version) {
+}
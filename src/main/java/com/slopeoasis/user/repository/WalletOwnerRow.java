@@ -0,0 +1,7 @@
+package com.slopeoasis.user.repository;
+
+/**
+ * Projection for reverse wallet lookups: verified wallet address -> owning user.
+ */
+public record WalletOwnerRow(String polygonWalletAddress, String clerkId) {
+}
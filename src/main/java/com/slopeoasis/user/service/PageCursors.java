@@ -0,0 +1,57 @@
+package com.slopeoasis.user.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for the keyset-paginated listings: the last key of a page, tagged with
+ * the listing it belongs to and base64url encoded. Clients only pass them back.
+ */
+public final class PageCursors {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PageCursors() {
+    }
+
+    public static String ofId(int id) {
+        return encode("i:" + id);
+    }
+
+    /** The id to continue after, 0 for the first page. */
+    public static int idAfter(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(decode(cursor, "i:"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+
+    public static String ofNicknameKey(String nicknameKey) {
+        return encode("n:" + nicknameKey);
+    }
+
+    /** The lowercase nickname to continue after, "" for the first page. */
+    public static String nicknameKeyAfter(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return "";
+        }
+        return decode(cursor, "n:");
+    }
+
+    private static String encode(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // IllegalArgumentException (-> 400) for garbage and for a cursor of the other listing
+    private static String decode(String cursor, String kind) {
+        String value = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        if (!value.startsWith(kind)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return value.substring(kind.length());
+    }
+}
@@ -0,0 +1,532 @@
+package com.slopeoasis.user.service;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional write-behind for the autosaved profile fields, nickname and themes
+ * (users.write-behind.enabled, off by default).
+ *
+ * Edits are coalesced per clerkId: a burst of edits of one user is a single pending entry
+ * holding the latest nickname and themes and the version handed to the client. Pending
+ * entries are written every users.write-behind.flush-millis, or as soon as flush-size users
+ * are pending, as JDBC batches of flush-size rows, one transaction per batch. UserServ
+ * overlays pending entries on its reads, so users read their own writes.
+ *
+ * A row that fails for another reason than a taken nickname is retried with the next flushes
+ * and dropped after users.write-behind.max-attempts; while the database is unreachable
+ * nothing is dropped and the buffer fills up until edits are turned away with 429.
+ *
+ * users.write-behind.ack picks the crash-safety trade-off:
+ * buffered answers as soon as the edit is buffered, so a crash (not a graceful shutdown,
+ * which flushes) loses up to one flush interval of edits; flushed answers once the batch
+ * holding the edit committed, so nothing acknowledged is lost but writes wait for the flush.
+ */
+@Profile("!reactive")
+@Component
+public class ProfileWriteBuffer {
+    private static final Logger log = LoggerFactory.getLogger(ProfileWriteBuffer.class);
+
+    // Conditional like the synchronous writes: applied only while the row is still at the
+    // version the entry is based on, and then it gets the version the client was handed. A row
+    // written elsewhere meanwhile matches nothing; the entry is rebased on the row as it is now
+    // and written again (see rebase), so one version never has two contents.
+    private static final String UPDATE_SQL = """
+            UPDATE users SET
+                nickname = COALESCE(?, nickname),
+                theme1 = CASE WHEN ? THEN ? ELSE theme1 END,
+                theme2 = CASE WHEN ? THEN ? ELSE theme2 END,
+                theme3 = CASE WHEN ? THEN ? ELSE theme3 END,
+                version = ?
+            WHERE id = ? AND version = ?
+            """;
+    private static final int[] UPDATE_TYPES = {
+        Types.VARCHAR,
+        Types.BOOLEAN, Types.SMALLINT,
+        Types.BOOLEAN, Types.SMALLINT,
+        Types.BOOLEAN, Types.SMALLINT,
+        Types.BIGINT,
+        Types.INTEGER, Types.BIGINT
+    };
+    private static final String VERSION_SQL = "SELECT version FROM users WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean ackFlushed;
+    private final long flushMillis;
+    private final int flushSize;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    // lower-cased buffered nickname -> clerkId, kept in step with pending (see track)
+    private final Map<String, String> nicknames = new ConcurrentHashMap<>();
+    // a lock rather than synchronized: flushes do JDBC I/O, which must not pin virtual threads
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Counter coalesced;
+    private final Counter flushedRows;
+    private final Counter conflicts;
+    private final Counter errors;
+    private final Counter dropped;
+    private final Timer flushTimer;
+    private volatile Consumer<List<Pending>> flushListener = written -> { };
+    private ScheduledExecutorService flusher;
+
+    public ProfileWriteBuffer(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${users.write-behind.enabled:false}") boolean enabled,
+                              @Value("${users.write-behind.ack:buffered}") String ack,
+                              @Value("${users.write-behind.flush-millis:200}") long flushMillis,
+                              @Value("${users.write-behind.flush-size:500}") int flushSize,
+                              @Value("${users.write-behind.max-pending:10000}") int maxPending,
+                              @Value("${users.write-behind.max-attempts:5}") int maxAttempts,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.ackFlushed = switch (ack) {
+            case "buffered" -> false;
+            case "flushed" -> true;
+            default -> throw new IllegalArgumentException("users.write-behind.ack must be buffered or flushed, not " + ack);
+        };
+        this.flushMillis = flushMillis;
+        this.flushSize = flushSize;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.coalesced = Counter.builder("users.write_behind.coalesced").register(meterRegistry);
+        this.flushedRows = Counter.builder("users.write_behind.flushed").register(meterRegistry);
+        this.conflicts = Counter.builder("users.write_behind.conflicts").register(meterRegistry);
+        this.errors = Counter.builder("users.write_behind.errors").register(meterRegistry);
+        this.dropped = Counter.builder("users.write_behind.dropped").register(meterRegistry);
+        this.flushTimer = Timer.builder("users.write_behind.flush").register(meterRegistry);
+        Gauge.builder("users.write_behind.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "profile-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs after the web server stopped taking requests (server.shutdown=graceful)
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("Shutting down with {} unwritten profile edits", pending.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Called with every batch of entries once they are written (including a dropped nickname)
+    public void onFlushed(Consumer<List<Pending>> listener) {
+        this.flushListener = listener;
+    }
+
+    // The buffered edits of a user, null when there are none
+    public Pending pending(String clerkId) {
+        return clerkId != null ? pending.get(clerkId) : null;
+    }
+
+    // clerkId of a user with this nickname (ignoring case) buffered, null when there is none
+    public String clerkIdWithNickname(String nickname) {
+        return nickname != null ? nicknames.get(nicknameKey(nickname)) : null;
+    }
+
+    // Drops the buffered edits of a deleted (or overwritten) user
+    public void discard(String clerkId) {
+        Pending[] removed = new Pending[1];
+        pending.computeIfPresent(clerkId, (id, cur) -> {
+            removed[0] = cur;
+            return track(cur, null);
+        });
+        if (removed[0] != null) {
+            removed[0].written().complete(null);
+        }
+    }
+
+    // Called wherever an entry is replaced (before -> after, either may be null) while its
+    // key is locked in pending, so the nickname index can't miss a change
+    private Pending track(Pending before, Pending after) {
+        String from = before != null ? before.nickname() : null;
+        String to = after != null ? after.nickname() : null;
+        if (from != null && (to == null || !nicknameKey(from).equals(nicknameKey(to)))) {
+            nicknames.remove(nicknameKey(from), before.clerkId());
+        }
+        if (to != null) {
+            nicknames.put(nicknameKey(to), after.clerkId());
+        }
+        return after;
+    }
+
+    // the unique index is on lower(nickname)
+    private static String nicknameKey(String nickname) {
+        return nickname.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Buffers a nickname edit on top of current (the user as UserServ sees it, pending edits
+     * included) and returns the new version. With expected (If-Match) it must name that row
+     * and version, otherwise OptimisticLockingFailureException. RejectedExecutionException when
+     * max-pending users are buffered already.
+     */
+    public long bufferNickname(UserSnapshot current, String nickname, UserVersion expected) {
+        return buffer(current, expected, nickname, false, null, null, null);
+    }
+
+    public long bufferThemes(UserSnapshot current, User.Tag theme1, User.Tag theme2, User.Tag theme3, UserVersion expected) {
+        return buffer(current, expected, null, true, theme1, theme2, theme3);
+    }
+
+    private long buffer(UserSnapshot current, UserVersion expected, String nickname,
+                        boolean themesSet, User.Tag theme1, User.Tag theme2, User.Tag theme3) {
+        if (pending.size() >= maxPending && !pending.containsKey(current.clerkId())) {
+            throw new RejectedExecutionException("Write-behind buffer full");
+        }
+        Pending entry = pending.compute(current.clerkId(), (clerkId, old) -> {
+            long at = old != null ? Math.max(old.version(), current.version()) : current.version();
+            if (expected != null && (!current.id().equals(expected.id()) || expected.version() != at)) {
+                throw new OptimisticLockingFailureException("User " + clerkId + " was modified concurrently");
+            }
+            CompletableFuture<Void> written = new CompletableFuture<>();
+            if (old == null) {
+                return track(null, new Pending(current.id(), clerkId, current.version(), at + 1,
+                        nickname, themesSet, theme1, theme2, theme3, 0, written));
+            }
+            coalesced.increment();
+            // whoever waits for the older entry is done once this one is written
+            written.whenComplete((v, e) -> complete(old.written(), e));
+            return track(old, new Pending(old.userId(), clerkId, old.baseVersion(), at + 1,
+                    nickname != null ? nickname : old.nickname(),
+                    themesSet || old.themesSet(),
+                    themesSet ? theme1 : old.theme1(),
+                    themesSet ? theme2 : old.theme2(),
+                    themesSet ? theme3 : old.theme3(),
+                    old.failures(), written));
+        });
+        if (flusher == null || flusher.isShutdown()) {
+            // not started (tests) or shutting down: nothing would flush it later
+            flush();
+        } else if (pending.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+        if (ackFlushed) {
+            try {
+                entry.written().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return entry.version();
+    }
+
+    private static void complete(CompletableFuture<Void> future, Throwable failure) {
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(null);
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // never let the scheduled task die
+            log.warn("Write-behind flush failed: {}", e.toString());
+        }
+    }
+
+    // Writes everything buffered so far; one flush at a time
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Pending> all = new ArrayList<>(pending.values());
+            flushTimer.record(() -> {
+                for (int from = 0; from < all.size(); from += flushSize) {
+                    if (!write(all.subList(from, Math.min(from + flushSize, all.size())))) {
+                        // the database is unreachable, the rest would fail the same way
+                        break;
+                    }
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes the buffered edits of one user only (before a synchronous write of that user)
+    public void flush(String clerkId) {
+        flushLock.lock();
+        try {
+            Pending p = pending(clerkId);
+            if (p != null) {
+                write(List.of(p));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // false when the database could not be reached at all
+    private boolean write(List<Pending> entries) {
+        try {
+            int[] counts = update(entries);
+            List<Pending> applied = new ArrayList<>(entries.size());
+            List<Pending> stale = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                // 0: written elsewhere since the entry's base version, or deleted
+                (counts[i] == 0 ? stale : applied).add(entries.get(i));
+            }
+            if (!applied.isEmpty()) {
+                written(applied);
+            }
+            for (Pending p : applied) {
+                settle(p, null);
+            }
+            for (Pending p : stale) {
+                rebase(p);
+            }
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            if (entries.size() > 1) {
+                // one taken nickname fails the whole batch
+                return writeOneByOne(entries);
+            }
+            // the nickname was claimed after the check in UserServ (another user or replica)
+            Pending p = entries.get(0);
+            conflicts.increment();
+            log.info("Buffered nickname of {} is taken, dropped", p.clerkId());
+            if (p.themesSet()) {
+                try {
+                    if (update(List.of(p.withoutNickname()))[0] == 0) {
+                        rebase(p.withoutNickname());
+                        complete(p.written(), e);
+                        return true;
+                    }
+                } catch (RuntimeException retry) {
+                    return failed(entries, retry);
+                }
+            }
+            written(List.of(p.withoutNickname()));
+            settle(p, e);
+            return true;
+        } catch (DataAccessResourceFailureException e) {
+            return failed(entries, e);
+        } catch (RuntimeException e) {
+            // isolate the row that fails the batch, the others get written
+            return entries.size() > 1 ? writeOneByOne(entries) : failed(entries, e);
+        }
+    }
+
+    private boolean writeOneByOne(List<Pending> entries) {
+        for (Pending p : entries) {
+            if (!write(List.of(p))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // rows updated per entry
+    private int[] update(List<Pending> entries) {
+        return transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SQL,
+                entries.stream().map(ProfileWriteBuffer::params).toList(), UPDATE_TYPES));
+    }
+
+    // p is in the database (or given up): drop it, or when newer edits were coalesced onto it
+    // meanwhile, base them on the version p just wrote so they get the version handed out
+    private void settle(Pending p, Throwable failure) {
+        pending.computeIfPresent(p.clerkId(), (clerkId, cur) -> track(cur, cur == p ? null : cur.rebasedOn(p.version())));
+        complete(p.written(), failure);
+    }
+
+    // The row of p was written elsewhere (another replica, a bulk import) after the version p
+    // is based on. Its edits go on top of the row as it is now, with a version past any handed
+    // out for them, so the client's tag no longer matches and its next If-Match fails with 412.
+    // Counts as a failed attempt, so an entry that keeps losing is dropped after max-attempts.
+    private void rebase(Pending p) {
+        conflicts.increment();
+        List<Long> current = jdbcTemplate.queryForList(VERSION_SQL, Long.class, p.userId());
+        Pending[] removed = new Pending[1];
+        Pending kept = pending.computeIfPresent(p.clerkId(), (clerkId, cur) -> {
+            if (cur.userId() != p.userId()) {
+                // edits of a re-created user, not based on this row
+                return cur;
+            }
+            if (current.isEmpty() || cur.failures() + 1 >= maxAttempts) {
+                removed[0] = cur;
+                return track(cur, null);
+            }
+            return track(cur, cur.rebasedOnRow(current.get(0)).withFailures(cur.failures() + 1));
+        });
+        if (kept != null && kept.userId() == p.userId()) {
+            // try again right away, until written or out of attempts
+            write(List.of(kept));
+            return;
+        }
+        RuntimeException failure = null;
+        if (!current.isEmpty() && removed[0] != null) {
+            dropped.increment();
+            log.warn("Buffered edits of {} dropped, the row kept changing underneath", p.clerkId());
+            failure = new OptimisticLockingFailureException("User " + p.clerkId() + " was modified concurrently");
+        }
+        // otherwise the row was deleted (or the entry discarded with it): nothing left to write
+        if (removed[0] != null) {
+            complete(removed[0].written(), failure);
+        }
+        complete(p.written(), failure);
+    }
+
+    // Unreachable database: kept for the next flush. Failing row: kept for max-attempts
+    // flushes, then dropped. With ack=flushed the waiting requests get the error right away,
+    // like a synchronous write. Returns false when the database is unreachable.
+    private boolean failed(List<Pending> entries, RuntimeException e) {
+        errors.increment();
+        boolean unreachable = e instanceof DataAccessResourceFailureException;
+        for (Pending p : entries) {
+            if (ackFlushed) {
+                pending.computeIfPresent(p.clerkId(), (clerkId, cur) -> cur == p ? track(cur, null) : cur);
+                p.written().completeExceptionally(e);
+            } else if (!unreachable) {
+                Pending kept = pending.computeIfPresent(p.clerkId(),
+                        (clerkId, cur) -> track(cur, cur.failures() + 1 >= maxAttempts ? null : cur.withFailures(cur.failures() + 1)));
+                if (kept == null) {
+                    dropped.increment();
+                    log.warn("Buffered edits of {} dropped after {} failed writes: {}", p.clerkId(), maxAttempts, e.toString());
+                    p.written().completeExceptionally(e);
+                }
+            }
+        }
+        if (unreachable) {
+            log.warn("Write-behind flush of {} users failed{}: {}", entries.size(),
+                    ackFlushed ? "" : ", retrying with the next flush", e.toString());
+        }
+        return !unreachable;
+    }
+
+    private void written(List<Pending> entries) {
+        flushedRows.increment(entries.size());
+        try {
+            flushListener.accept(entries);
+        } catch (RuntimeException e) {
+            // the rows are committed; stale caches expire on their own
+            log.warn("Write-behind flush listener failed: {}", e.toString());
+        }
+    }
+
+    private static Object[] params(Pending p) {
+        return new Object[] {
+            p.nickname(),
+            p.themesSet(), code(p.theme1()),
+            p.themesSet(), code(p.theme2()),
+            p.themesSet(), code(p.theme3()),
+            p.version(),
+            p.userId(), p.baseVersion()
+        };
+    }
+
+    private static Short code(User.Tag tag) {
+        return tag != null ? tag.code() : null;
+    }
+
+    /**
+     * Buffered edits of one user: nickname null when unchanged, themes only when themesSet.
+     * baseVersion is the version of the row they are based on, version the one handed to the
+     * client for the latest; failures counts failed writes. written completes once they are in
+     * the database.
+     */
+    public record Pending(int userId, String clerkId, long baseVersion, long version,
+                          String nickname, boolean themesSet,
+                          User.Tag theme1, User.Tag theme2, User.Tag theme3,
+                          int failures, CompletableFuture<Void> written) {
+
+        // current with the buffered edits applied
+        public UserSnapshot applyTo(UserSnapshot current) {
+            return new UserSnapshot(current.id(), current.clerkId(),
+                    nickname != null ? nickname : current.nickname(),
+                    themesSet ? theme1 : current.theme1(),
+                    themesSet ? theme2 : current.theme2(),
+                    themesSet ? theme3 : current.theme3(),
+                    current.polygonWalletAddress(), current.polygonWalletVerified(),
+                    Math.max(version, current.version()));
+        }
+
+        Pending withoutNickname() {
+            return new Pending(userId, clerkId, baseVersion, version, null, themesSet, theme1, theme2, theme3, failures, written);
+        }
+
+        Pending rebasedOn(long writtenVersion) {
+            return new Pending(userId, clerkId, writtenVersion, Math.max(version, writtenVersion + 1),
+                    nickname, themesSet, theme1, theme2, theme3, failures, written);
+        }
+
+        // on top of a row changed elsewhere: a version neither the row nor this entry had yet
+        Pending rebasedOnRow(long rowVersion) {
+            return new Pending(userId, clerkId, rowVersion, Math.max(version, rowVersion) + 1,
+                    nickname, themesSet, theme1, theme2, theme3, failures, written);
+        }
+
+        Pending withFailures(int failures) {
+            return new Pending(userId, clerkId, baseVersion, version, nickname, themesSet, theme1, theme2, theme3, failures, written);
+        }
+    }
+}
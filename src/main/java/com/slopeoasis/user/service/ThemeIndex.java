@@ -0,0 +1,305 @@
+package com.slopeoasis.user.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.slopeoasis.user.entity.User;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory inverted index Tag -> compressed bitmap (RoaringBitmap) of the ids of users
+ * with that theme, so "users interested in CODE and MUSIC" is a bitmap AND instead of a
+ * scan over theme1..theme3.
+ *
+ * Built from a streaming scan of the users table once the application is ready and rebuilt
+ * every users.themes.index.rebuild-seconds, which also picks up writes made on other
+ * replicas. Writes on this replica update it right away (UserServ calls update/remove).
+ * Writes that arrive during a rebuild are replayed onto the new index before it is swapped in.
+ */
+@Profile("!reactive")
+@Component
+public class ThemeIndex {
+    private static final Logger log = LoggerFactory.getLogger(ThemeIndex.class);
+    private static final User.Tag[] TAGS = User.Tag.values();
+
+    private static final String SCAN_SQL = """
+            SELECT id, theme_mask
+            FROM users
+            WHERE theme_mask <> 0
+            """;
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnly;
+    private final long rebuildSeconds;
+    private final Timer rebuildTimer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by lock
+    private Map<User.Tag, RoaringBitmap> bitmaps = emptyBitmaps();
+    // writes seen while a rebuild scans, replayed onto its result; null when no rebuild runs
+    private List<Runnable> pendingDuringRebuild;
+    private volatile boolean ready;
+    private ScheduledExecutorService rebuilder;
+
+    public ThemeIndex(JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${users.bulk.fetch-size:1000}") int fetchSize,
+                      @Value("${users.themes.index.rebuild-seconds:300}") long rebuildSeconds,
+                      MeterRegistry meterRegistry) {
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.rebuildSeconds = rebuildSeconds;
+        this.rebuildTimer = Timer.builder("themes.index.rebuild").register(meterRegistry);
+        Gauge.builder("themes.index.users", this, ThemeIndex::indexedUsers).register(meterRegistry);
+    }
+
+    private static Map<User.Tag, RoaringBitmap> emptyBitmaps() {
+        Map<User.Tag, RoaringBitmap> m = new EnumMap<>(User.Tag.class);
+        for (User.Tag tag : TAGS) {
+            m.put(tag, new RoaringBitmap());
+        }
+        return m;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuilder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "theme-index-rebuild");
+            t.setDaemon(true);
+            return t;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    // false until the first scan finished
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Runs the rebuild on the background thread, e.g. after a bulk import
+    public void requestRebuild() {
+        if (rebuilder != null) {
+            rebuilder.execute(this::rebuildQuietly);
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // keep serving the previous index, the next run tries again
+            log.warn("Theme index rebuild failed: {}", e.toString());
+        }
+    }
+
+    void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<User.Tag, RoaringBitmap> fresh = emptyBitmaps();
+        boolean built = false;
+        try {
+            rebuildTimer.record(() -> readOnly.executeWithoutResult(status -> cursorTemplate.query(SCAN_SQL, rs -> {
+                int id = rs.getInt(1);
+                int mask = rs.getShort(2);
+                for (User.Tag tag : TAGS) {
+                    if ((mask & tag.bit()) != 0) {
+                        fresh.get(tag).add(id);
+                    }
+                }
+            })));
+            for (RoaringBitmap b : fresh.values()) {
+                b.runOptimize();
+            }
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                List<Runnable> pending = pendingDuringRebuild;
+                pendingDuringRebuild = null;
+                if (built) {
+                    bitmaps = fresh;
+                    pending.forEach(Runnable::run);
+                    if (!ready) {
+                        log.info("Theme index built: {} users", indexedUsersLocked());
+                    }
+                    ready = true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Replaces the indexed themes of a user (null tags are ignored). */
+    public void update(int userId, User.Tag theme1, User.Tag theme2, User.Tag theme3) {
+        write(() -> {
+            for (RoaringBitmap b : bitmaps.values()) {
+                b.remove(userId);
+            }
+            for (User.Tag t : new User.Tag[] {theme1, theme2, theme3}) {
+                if (t != null) {
+                    bitmaps.get(t).add(userId);
+                }
+            }
+        });
+    }
+
+    public void remove(int userId) {
+        write(() -> {
+            for (RoaringBitmap b : bitmaps.values()) {
+                b.remove(userId);
+            }
+        });
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of users with all (matchAll) or any of the tags, ascending, starting after afterId;
+     * at most limit of them. Only walks as far as the page reaches, no total is computed.
+     */
+    public int[] query(Collection<User.Tag> tags, boolean matchAll, int afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            if (tags.isEmpty()) {
+                return new int[0];
+            }
+            RoaringBitmap[] operands = operands(tags);
+            if (matchAll && operands.length > 1) {
+                return intersect(operands, afterId, limit);
+            }
+            return union(operands, afterId, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap[] operands(Collection<User.Tag> tags) {
+        RoaringBitmap[] operands = new RoaringBitmap[tags.size()];
+        int i = 0;
+        for (User.Tag tag : tags) {
+            operands[i++] = bitmaps.get(tag);
+        }
+        return operands;
+    }
+
+    // AND without building the intersection (which for popular themes holds ~N/36 ids): the
+    // page comes from walking two iterators that skip ahead to each other's next id
+    private static int[] intersect(RoaringBitmap[] operands, int afterId, int limit) {
+        RoaringBitmap first = operands[0];
+        RoaringBitmap rest = operands.length == 2 ? operands[1]
+                : FastAggregation.and(Arrays.copyOfRange(operands, 1, operands.length));
+        int[] ids = new int[limit];
+        int n = 0;
+        PeekableIntIterator a = first.getIntIterator();
+        PeekableIntIterator b = rest.getIntIterator();
+        int next = afterId + 1;
+        while (n < limit) {
+            a.advanceIfNeeded(next);
+            if (!a.hasNext()) {
+                break;
+            }
+            int x = a.peekNext();
+            b.advanceIfNeeded(x);
+            if (!b.hasNext()) {
+                break;
+            }
+            int y = b.peekNext();
+            if (x == y) {
+                ids[n++] = x;
+                next = x + 1;
+            } else {
+                next = y;
+            }
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    // OR the same way: the page is a merge of the operands' iterators
+    private static int[] union(RoaringBitmap[] operands, int afterId, int limit) {
+        PeekableIntIterator[] its = new PeekableIntIterator[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            its[i] = operands[i].getIntIterator();
+            its[i].advanceIfNeeded(afterId + 1);
+        }
+        int[] ids = new int[limit];
+        int n = 0;
+        while (n < limit) {
+            long min = Long.MAX_VALUE;
+            for (PeekableIntIterator it : its) {
+                if (it.hasNext()) {
+                    min = Math.min(min, it.peekNext());
+                }
+            }
+            if (min == Long.MAX_VALUE) {
+                break;
+            }
+            ids[n++] = (int) min;
+            for (PeekableIntIterator it : its) {
+                it.advanceIfNeeded((int) min + 1);
+            }
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    private double indexedUsers() {
+        lock.readLock().lock();
+        try {
+            return indexedUsersLocked();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long indexedUsersLocked() {
+        return RoaringBitmap.or(bitmaps.values().iterator()).getLongCardinality();
+    }
+}
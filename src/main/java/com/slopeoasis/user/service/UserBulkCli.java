@@ -0,0 +1,65 @@
+package com.slopeoasis.user.service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command line mode of the bulk export/import: runs once at startup and exits.
+ *
+ * java -jar user-service.jar --spring.main.web-application-type=none \
+ *     --users.bulk.mode=export --users.bulk.file=users.ndjson
+ *
+ * The format follows the file extension (.csv, anything else is NDJSON).
+ */
+@Profile("!reactive")
+@Component
+@ConditionalOnProperty(name = "users.bulk.mode")
+public class UserBulkCli implements ApplicationRunner {
+
+    private final UserBulkServ userBulkServ;
+    private final ConfigurableApplicationContext context;
+    private final String mode;
+    private final Path file;
+
+    public UserBulkCli(UserBulkServ userBulkServ,
+                       ConfigurableApplicationContext context,
+                       @Value("${users.bulk.mode}") String mode,
+                       @Value("${users.bulk.file}") String file) {
+        this.userBulkServ = userBulkServ;
+        this.context = context;
+        this.mode = mode;
+        this.file = Path.of(file);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        UserBulkServ.Format format = file.getFileName().toString().toLowerCase().endsWith(".csv")
+                ? UserBulkServ.Format.CSV : UserBulkServ.Format.NDJSON;
+        switch (mode) {
+            case "export" -> {
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    userBulkServ.export(format, out);
+                }
+            }
+            case "import" -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    userBulkServ.importUsers(format, in);
+                }
+            }
+            default -> throw new IllegalArgumentException("users.bulk.mode must be export or import, not " + mode);
+        }
+        // both methods log the row count and rows/sec
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
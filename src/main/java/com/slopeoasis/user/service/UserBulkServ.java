@@ -0,0 +1,367 @@
+package com.slopeoasis.user.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.web3j.WalletAddresses;
+
+/**
+ * Bulk export and import of the users table as NDJSON or CSV, in constant memory.
+ *
+ * Export reads through a server-side cursor (read-only transaction, fixed fetch size) and
+ * writes each row as it arrives. Import parses one record at a time and upserts on
+ * clerk_id with JDBC batches of users.bulk.batch-size, each batch in its own transaction;
+ * an existing user is overwritten and its version bumped. Both report rows/sec.
+ */
+@Profile("!reactive")
+@Service
+public class UserBulkServ {
+    private static final Logger log = LoggerFactory.getLogger(UserBulkServ.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectReader ROW_READER = JSON.readerFor(UserRow.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final long PROGRESS_EVERY = 1_000_000;
+
+    static final String[] CSV_HEADER = {
+        "clerk_id", "nickname", "theme1", "theme2", "theme3",
+        "polygon_wallet_address", "polygon_wallet_verified", "version"
+    };
+
+    private static final String EXPORT_SQL = """
+            SELECT clerk_id, nickname, theme1, theme2, theme3,
+                   polygon_wallet_address, polygon_wallet_verified, version
+            FROM users
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO users (clerk_id, nickname, theme1, theme2, theme3,
+                               polygon_wallet_address, polygon_wallet_verified)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (clerk_id) DO UPDATE SET
+                nickname = EXCLUDED.nickname,
+                theme1 = EXCLUDED.theme1,
+                theme2 = EXCLUDED.theme2,
+                theme3 = EXCLUDED.theme3,
+                polygon_wallet_address = EXCLUDED.polygon_wallet_address,
+                polygon_wallet_verified = EXCLUDED.polygon_wallet_verified,
+                version = users.version + 1
+            """;
+
+    // Wallets the batch is about to overwrite, locked until it commits so they can't change
+    // in between: their owner cache entries are stale afterwards as well
+    private static final String PREVIOUS_WALLETS_SQL = """
+            SELECT polygon_wallet_address FROM users
+            WHERE clerk_id = ANY (?) AND polygon_wallet_address <> ''
+            FOR UPDATE
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate writes;
+    private final UserServ userServ;
+    private final ThemeIndex themeIndex;
+    private final int batchSize;
+
+    public UserBulkServ(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        UserServ userServ,
+                        ThemeIndex themeIndex,
+                        @Value("${users.bulk.fetch-size:1000}") int fetchSize,
+                        @Value("${users.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // pgjdbc only streams with a fetch size inside a transaction, otherwise it buffers the whole result
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.writes = new TransactionTemplate(transactionManager);
+        this.userServ = userServ;
+        this.themeIndex = themeIndex;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        // "ndjson" / "csv", case-insensitive; IllegalArgumentException otherwise
+        public static Format parse(String name) {
+            for (Format f : values()) {
+                if (f.extension.equalsIgnoreCase(name)) {
+                    return f;
+                }
+            }
+            throw new IllegalArgumentException("Unknown format: " + name);
+        }
+    }
+
+    // One user as exported and imported; version is ignored on import
+    public record UserRow(String clerkId, String nickname, String theme1, String theme2, String theme3,
+                          String polygonWalletAddress, Boolean polygonWalletVerified, Long version) { }
+
+    public record BulkResult(long rows, long millis, long rowsPerSecond) {
+        static BulkResult since(long rows, long startNanos) {
+            long millis = (System.nanoTime() - startNanos) / 1_000_000;
+            return new BulkResult(rows, millis, millis == 0 ? rows : rows * 1000 / millis);
+        }
+    }
+
+    // Writes all users to out (not closed). Throws UncheckedIOException when out fails, e.g. client gone.
+    public BulkResult export(Format format, OutputStream out) {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        Long rows = readOnly.execute(status -> cursorTemplate.query(EXPORT_SQL, rs -> {
+            try {
+                long n = format == Format.CSV ? writeCsv(rs, writer) : writeNdjson(rs, writer);
+                writer.flush();
+                return n;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        BulkResult result = BulkResult.since(rows != null ? rows : 0, start);
+        log.info("Exported {} users as {} in {} ms ({} rows/s)", result.rows(), format, result.millis(), result.rowsPerSecond());
+        return result;
+    }
+
+    private static long writeCsv(ResultSet rs, Writer writer) throws SQLException, IOException {
+        Csv.writeRow(writer, CSV_HEADER);
+        long n = 0;
+        while (rs.next()) {
+            UserRow u = row(rs);
+            Csv.writeRow(writer, u.clerkId(), u.nickname(), u.theme1(), u.theme2(), u.theme3(),
+                    u.polygonWalletAddress(), String.valueOf(u.polygonWalletVerified()), String.valueOf(u.version()));
+            n++;
+        }
+        return n;
+    }
+
+    private static long writeNdjson(ResultSet rs, Writer writer) throws SQLException, IOException {
+        JsonGenerator gen = JSON.getFactory().createGenerator(writer);
+        gen.setRootValueSeparator(null);
+        long n = 0;
+        while (rs.next()) {
+            gen.writeObject(row(rs));
+            gen.writeRaw('\n');
+            n++;
+        }
+        gen.flush();
+        return n;
+    }
+
+    private static UserRow row(ResultSet rs) throws SQLException {
+        return new UserRow(rs.getString(1), rs.getString(2), themeName(rs, 3), themeName(rs, 4), themeName(rs, 5),
+                rs.getString(6), rs.getBoolean(7), rs.getLong(8));
+    }
+
+    /**
+     * Upserts every record of in. A malformed record throws IllegalArgumentException naming
+     * it; a nickname taken by another user fails its batch with DataIntegrityViolationException.
+     * Batches before the failing one stay committed.
+     */
+    public BulkResult importUsers(Format format, InputStream in) throws IOException {
+        try {
+            return upsertAll(format, in);
+        } finally {
+            // themes of many users may have changed, also when the import stopped half way
+            themeIndex.requestRebuild();
+        }
+    }
+
+    private BulkResult upsertAll(Format format, InputStream in) throws IOException {
+        long start = System.nanoTime();
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        RowSource source = format == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        List<String> clerkIds = new ArrayList<>(batchSize);
+        List<String> wallets = new ArrayList<>();
+        long imported = 0;
+        long record = 0;
+        UserRow u;
+        while ((u = source.next()) != null) {
+            record++;
+            Object[] params = upsertParams(u, record);
+            batch.add(params);
+            clerkIds.add((String) params[0]);
+            if (!((String) params[5]).isEmpty()) {
+                wallets.add((String) params[5]);
+            }
+            if (batch.size() == batchSize) {
+                imported += flush(batch, clerkIds, wallets, imported);
+                if (imported % PROGRESS_EVERY < batchSize) {
+                    log.info("Imported {} users so far ({} rows/s)", imported, BulkResult.since(imported, start).rowsPerSecond());
+                }
+            }
+        }
+        imported += flush(batch, clerkIds, wallets, imported);
+
+        BulkResult result = BulkResult.since(imported, start);
+        log.info("Imported {} users from {} in {} ms ({} rows/s)", result.rows(), format, result.millis(), result.rowsPerSecond());
+        return result;
+    }
+
+    private int flush(List<Object[]> batch, List<String> clerkIds, List<String> wallets, long importedBefore) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            writes.executeWithoutResult(status -> {
+                wallets.addAll(jdbcTemplate.queryForList(PREVIOUS_WALLETS_SQL, String.class,
+                        (Object) clerkIds.toArray(String[]::new)));
+                jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new DataIntegrityViolationException("Import stopped after " + importedBefore + " users: "
+                    + e.getMostSpecificCause().getMessage(), e);
+        }
+        // imported and replaced wallets alike
+        userServ.invalidateCached(clerkIds, wallets);
+        int n = batch.size();
+        batch.clear();
+        clerkIds.clear();
+        wallets.clear();
+        return n;
+    }
+
+    // Validated and normalized statement parameters, in UPSERT_SQL order
+    static Object[] upsertParams(UserRow u, long record) {
+        if (u.clerkId() == null || u.clerkId().isBlank()) {
+            throw new IllegalArgumentException("Record " + record + ": clerkId is required");
+        }
+        String wallet = u.polygonWalletAddress();
+        if (wallet == null || wallet.isBlank()) {
+            wallet = "";
+        } else if (WalletAddresses.isValid(wallet.trim())) {
+            wallet = WalletAddresses.normalize(wallet);
+        } else {
+            throw new IllegalArgumentException("Record " + record + ": malformed wallet address");
+        }
+        return new Object[] {
+            u.clerkId().trim(),
+            u.nickname() != null ? u.nickname() : "",
+            theme(u.theme1(), record),
+            theme(u.theme2(), record),
+            theme(u.theme3(), record),
+            wallet,
+            !wallet.isEmpty() && Boolean.TRUE.equals(u.polygonWalletVerified())
+        };
+    }
+
+    // themes are stored as smallint codes, files carry the names
+    private static String themeName(ResultSet rs, int column) throws SQLException {
+        short code = rs.getShort(column);
+        User.Tag tag = rs.wasNull() ? null : User.Tag.fromCode(code);
+        return tag != null ? tag.name() : null;
+    }
+
+    private static Short theme(String name, long record) {
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("null")) {
+            return null;
+        }
+        User.Tag tag = User.Tag.fromName(name.trim().toUpperCase(Locale.ROOT));
+        if (tag == null) {
+            throw new IllegalArgumentException("Record " + record + ": unknown theme " + name);
+        }
+        return tag.code();
+    }
+
+    interface RowSource {
+        // next record, null at the end of the input
+        UserRow next() throws IOException;
+    }
+
+    static RowSource ndjsonRows(Reader reader) throws IOException {
+        MappingIterator<UserRow> it = ROW_READER.readValues(reader);
+        return () -> {
+            try {
+                return it.hasNextValue() ? it.nextValue() : null;
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed NDJSON at line " + e.getLocation().getLineNr(), e);
+            }
+        };
+    }
+
+    // columns are matched by the header row, so their order does not matter and extra ones are ignored
+    static RowSource csvRows(Reader reader) throws IOException {
+        List<String> header = Csv.readRow(reader);
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        if (!columns.containsKey("clerk_id")) {
+            throw new IllegalArgumentException("CSV header must contain clerk_id");
+        }
+        return () -> {
+            List<String> row;
+            do {
+                row = Csv.readRow(reader);
+            } while (row != null && row.size() == 1 && row.get(0).isEmpty());
+            if (row == null) {
+                return null;
+            }
+            String verified = column(row, columns, "polygon_wallet_verified");
+            return new UserRow(column(row, columns, "clerk_id"), column(row, columns, "nickname"),
+                    column(row, columns, "theme1"), column(row, columns, "theme2"), column(row, columns, "theme3"),
+                    column(row, columns, "polygon_wallet_address"),
+                    verified != null ? Boolean.parseBoolean(verified.trim()) : null, null);
+        };
+    }
+
+    private static String column(List<String> row, Map<String, Integer> columns, String name) {
+        Integer i = columns.get(name);
+        return i != null && i < row.size() ? row.get(i) : null;
+    }
+}
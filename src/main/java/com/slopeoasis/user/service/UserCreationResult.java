@@ -1,17 +1,17 @@
 package com.slopeoasis.user.service;
 
-import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserSnapshot;
 
 public class UserCreationResult {
-    private final User user;
+    private final UserSnapshot user;
     private final boolean created;
 
-    public UserCreationResult(User user, boolean created) {
+    public UserCreationResult(UserSnapshot user, boolean created) {
         this.user = user;
         this.created = created;
     }
 
-    public User getUser() {
+    public UserSnapshot getUser() {
         return user;
     }
 
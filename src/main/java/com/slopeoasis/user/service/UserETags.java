@@ -0,0 +1,106 @@
+package com.slopeoasis.user.service;
+
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+
+/**
+ * Strong ETags for user responses: "clerkId-id-version". The version is bumped by every
+ * update of the row and the identity id is never reused, so a client or CDN copy is current
+ * exactly while both match, also across a delete and re-signup of the same clerkId.
+ * Writes accept the same tag in If-Match as an optimistic-locking precondition.
+ */
+public final class UserETags {
+    // identity ids start at 1 and versions at 0, so a conditional update expecting this never applies
+    public static final UserVersion NEVER = new UserVersion(0, -1L);
+
+    private UserETags() {
+    }
+
+    public static String of(UserSnapshot u) {
+        return of(u.clerkId(), u.id(), u.version());
+    }
+
+    public static String of(String clerkId, UserVersion v) {
+        return of(clerkId, v.id(), v.version());
+    }
+
+    public static String of(String clerkId, int id, long version) {
+        return "\"" + clerkId + "-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * The clerkId named by the first entity tag of an If-None-Match header, or null when
+     * the header is missing or the tag was not issued by us.
+     */
+    public static String clerkIdOf(String ifNoneMatch) {
+        // a CDN may have weakened it when compressing
+        String[] parsed = parse(ifNoneMatch, true);
+        return parsed != null ? parsed[0] : null;
+    }
+
+    /**
+     * The row and version an If-Match header expects for the given user, null when there is
+     * no precondition (header missing or "*"). A tag for another user, a weak or malformed
+     * tag can never match and yields NEVER.
+     */
+    public static UserVersion expected(String ifMatch, String clerkId) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        // If-Match uses the strong comparison
+        String[] parsed = parse(ifMatch, false);
+        if (parsed == null || !parsed[0].equals(clerkId)) {
+            return NEVER;
+        }
+        try {
+            return new UserVersion(Integer.parseInt(parsed[1]), Long.parseLong(parsed[2]));
+        } catch (NumberFormatException e) {
+            return NEVER;
+        }
+    }
+
+    // {clerkId, id, version} of the first tag in the header
+    private static String[] parse(String header, boolean allowWeak) {
+        if (header == null) {
+            return null;
+        }
+        String tag = header.trim();
+        int comma = tag.indexOf(',');
+        if (comma >= 0) {
+            tag = tag.substring(0, comma).trim();
+        }
+        if (tag.startsWith("W/")) {
+            if (!allowWeak) {
+                return null;
+            }
+            tag = tag.substring(2);
+        }
+        if (tag.length() < 7 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        int end = tag.length() - 1;
+        int versionDash = tag.lastIndexOf('-', end - 1);
+        if (!digitsBetween(tag, versionDash, end)) {
+            return null;
+        }
+        int idDash = tag.lastIndexOf('-', versionDash - 1);
+        if (idDash <= 1 || !digitsBetween(tag, idDash, versionDash)) {
+            return null;
+        }
+        return new String[] {tag.substring(1, idDash), tag.substring(idDash + 1, versionDash),
+                tag.substring(versionDash + 1, end)};
+    }
+
+    // at least one digit strictly between the two positions
+    private static boolean digitsBetween(String tag, int from, int to) {
+        if (from < 0 || to - from < 2) {
+            return false;
+        }
+        for (int i = from + 1; i < to; i++) {
+            if (!Character.isDigit(tag.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
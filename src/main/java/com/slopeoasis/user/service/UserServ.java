@@ -1,149 +1,566 @@
 package com.slopeoasis.user.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.ToLongFunction;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import com.slopeoasis.user.cache.CacheMetrics;
+import com.slopeoasis.user.cache.ExpiringLruCache;
+import com.slopeoasis.user.cache.SharedCacheTier;
+import com.slopeoasis.user.cache.TwoLevelCache;
 import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserListRow;
 import com.slopeoasis.user.repository.UserRepo;
-import com.slopeoasis.user.web3j.WalletSignatureVerifier;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserUpsertRow;
+import com.slopeoasis.user.repository.UserVersion;
+import com.slopeoasis.user.repository.WalletOwnerRow;
+import com.slopeoasis.user.web3j.WalletAddresses;
+import com.slopeoasis.user.web3j.WalletChallenge;
+import com.slopeoasis.user.web3j.WalletChallengeStore;
+import com.slopeoasis.user.web3j.WalletVerificationService;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Profile("!reactive")
 @Service
 public class UserServ {
+    // upper bound for batch lookups (one IN (...) query per batch)
+    public static final int MAX_BATCH_SIZE = 500;
+    // page size bounds of the keyset listings
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
     private final UserRepo userRepo;
-    private final WalletSignatureVerifier walletSignatureVerifier;
+    private final WalletVerificationService walletVerificationService;
+    private final WalletChallengeStore walletChallengeStore;
+    private final ThemeIndex themeIndex;
+    // nickname/theme edits not written yet (users.write-behind.enabled), overlaid on every read
+    private final ProfileWriteBuffer writeBuffer;
+    // clerkId -> snapshot; Optional.empty() marks a user that does not exist (negative entry).
+    // Both caches are per-replica L1 over the shared tier (users.cache.l2.type), writes invalidate both.
+    private final TwoLevelCache<Optional<UserSnapshot>> userCache;
+    // normalized wallet address -> clerkId of the verified owner, same negative-entry convention
+    private final TwoLevelCache<Optional<String>> walletOwnerCache;
+    private final long cacheTtlMillis;
+    private final long negativeCacheTtlMillis;
+    private final int maxWriteRetries;
 
-    public UserServ(UserRepo userRepo) {
+    public UserServ(UserRepo userRepo,
+                    WalletVerificationService walletVerificationService,
+                    WalletChallengeStore walletChallengeStore,
+                    SharedCacheTier sharedCacheTier,
+                    ThemeIndex themeIndex,
+                    ProfileWriteBuffer writeBuffer,
+                    @Value("${users.cache.max-size:50000}") int cacheMaxSize,
+                    @Value("${users.cache.ttl-seconds:60}") long cacheTtlSeconds,
+                    @Value("${users.cache.negative-ttl-seconds:10}") long negativeCacheTtlSeconds,
+                    @Value("${users.write.max-retries:3}") int maxWriteRetries,
+                    MeterRegistry meterRegistry) {
         this.userRepo = userRepo;
-        this.walletSignatureVerifier = new WalletSignatureVerifier();
+        this.walletVerificationService = walletVerificationService;
+        this.walletChallengeStore = walletChallengeStore;
+        this.themeIndex = themeIndex;
+        this.writeBuffer = writeBuffer;
+        writeBuffer.onFlushed(this::writtenBehind);
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+        this.negativeCacheTtlMillis = negativeCacheTtlSeconds * 1000;
+        ToLongFunction<Optional<?>> ttl = v -> v.isPresent() ? cacheTtlMillis : negativeCacheTtlMillis;
+        this.userCache = new TwoLevelCache<>("users", cacheMaxSize, sharedCacheTier,
+                UserServ::encodeSnapshot, UserServ::decodeSnapshot, ttl::applyAsLong);
+        // clerkIds are never empty, so "" can stand for the negative entry
+        this.walletOwnerCache = new TwoLevelCache<>("walletOwners", cacheMaxSize, sharedCacheTier,
+                owner -> owner.orElse(""), raw -> raw.isEmpty() ? Optional.empty() : Optional.of(raw), ttl::applyAsLong);
+        this.maxWriteRetries = maxWriteRetries;
+        CacheMetrics.bind(meterRegistry, "users", userCache);
+        CacheMetrics.bind(meterRegistry, "walletOwners", walletOwnerCache);
+    }
+
+    // Read-through lookup of the user snapshot, null when the user does not exist
+    private UserSnapshot findSnapshot(String clerkId) {
+        Optional<UserSnapshot> cached = userCache.get(clerkId);
+        if (cached != null) {
+            return withPending(cached.orElse(null));
+        }
+        // a write finishing while we read must not be overwritten by what we read (see TwoLevelCache)
+        long stamp = userCache.stamp(clerkId);
+        Optional<UserSnapshot> loaded = userRepo.findSnapshotByClerkId(clerkId);
+        userCache.put(clerkId, loaded, stamp);
+        return withPending(loaded.orElse(null));
+    }
+
+    // Caches hold what is in the database; buffered edits are applied on the way out
+    private UserSnapshot withPending(UserSnapshot u) {
+        ProfileWriteBuffer.Pending p = u != null ? writeBuffer.pending(u.clerkId()) : null;
+        return p != null ? p.applyTo(u) : u;
+    }
+
+    // Buffered edits reached the database: drop the stale snapshots and index the themes
+    private void writtenBehind(List<ProfileWriteBuffer.Pending> written) {
+        for (ProfileWriteBuffer.Pending p : written) {
+            userCache.invalidate(p.clerkId());
+            if (p.themesSet()) {
+                themeIndex.update(p.userId(), p.theme1(), p.theme2(), p.theme3());
+            }
+        }
+    }
+
+    private void cacheSnapshot(String clerkId, Optional<UserSnapshot> snapshot) {
+        userCache.put(clerkId, snapshot);
+    }
+
+    // L2 representation: the snapshot as JSON, "" for a negative entry
+    private static String encodeSnapshot(Optional<UserSnapshot> snapshot) {
+        if (snapshot.isEmpty()) {
+            return "";
+        }
+        try {
+            return JSON.writeValueAsString(snapshot.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Optional<UserSnapshot> decodeSnapshot(String raw) {
+        if (raw.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(JSON.readValue(raw, UserSnapshot.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Snapshots for many clerkIds: cached ones first, the rest with a single IN query
+    private Map<String, UserSnapshot> findSnapshots(Collection<String> clerkIds) {
+        Map<String, UserSnapshot> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, Optional<UserSnapshot>> cachedAll = userCache.getAll(clerkIds);
+        for (String clerkId : clerkIds) {
+            Optional<UserSnapshot> cached = cachedAll.get(clerkId);
+            if (cached == null) {
+                missing.add(clerkId);
+            } else {
+                cached.ifPresent(u -> found.put(clerkId, u));
+            }
+        }
+        if (!missing.isEmpty()) {
+            long[] stamps = missing.stream().mapToLong(userCache::stamp).toArray();
+            for (UserSnapshot u : userRepo.findSnapshotsByClerkIdIn(missing)) {
+                found.put(u.clerkId(), u);
+            }
+            for (int i = 0; i < missing.size(); i++) {
+                userCache.put(missing.get(i), Optional.ofNullable(found.get(missing.get(i))), stamps[i]);
+            }
+        }
+        found.replaceAll((clerkId, u) -> withPending(u));
+        return found;
+    }
+
+    // Drops users and wallet owners written behind the service's back (bulk import), and the
+    // edits buffered for those users: the import overwrote what they were based on
+    public void invalidateCached(Collection<String> clerkIds, Collection<String> walletAddresses) {
+        clerkIds.forEach(writeBuffer::discard);
+        clerkIds.forEach(userCache::invalidate);
+        walletAddresses.forEach(walletOwnerCache::invalidate);
+    }
+
+    public ExpiringLruCache.CacheStats getUserCacheStats() {
+        return userCache.local().stats();
+    }
+
+    public ExpiringLruCache.CacheStats getWalletOwnerCacheStats() {
+        return walletOwnerCache.local().stats();
     }
 
     // Return existing user with given clerkId or create and return a new one.
     // Wallet is no longer stored in database (retrieved from Clerk on frontend).
     // Returns a UserCreationResult that indicates whether the user was created.
+    // Almost every call is a returning user, served from the snapshot cache (or one SELECT).
+    // Only a missing user gets the single INSERT ... ON CONFLICT statement, so parallel calls
+    // for a new user can't race into a unique constraint violation on clerk_id.
     public UserCreationResult createOrGetByClerkId(String clerkId, String walletAddress) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            return new UserCreationResult(existing.get(), false);
+        UserSnapshot known = findSnapshot(clerkId);
+        if (known != null) {
+            return new UserCreationResult(known, false);
+        }
+        Optional<UserUpsertRow> row = userRepo.insertOrGet(clerkId);
+        UserCreationResult result;
+        if (row.isPresent()) {
+            result = new UserCreationResult(row.get().toSnapshot(), Boolean.TRUE.equals(row.get().getCreated()));
+        } else {
+            // lost the race to a concurrent insert that committed after our statement started
+            UserSnapshot existing = userRepo.findSnapshotByClerkId(clerkId)
+                    .orElseThrow(() -> new IllegalStateException("User vanished during create: " + clerkId));
+            result = new UserCreationResult(existing, false);
         }
-        User u = new User(clerkId);
-        User saved = userRepo.save(u);
-        return new UserCreationResult(saved, true);
+        // also replaces a possible negative entry from an earlier lookup
+        cacheSnapshot(clerkId, Optional.of(result.getUser()));
+        return result;
     }
 
-    public PublicProfile getPublicProfileByClerkId(String clerkId) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            return new PublicProfile(u.getNickname());
+    // Snapshot behind the public endpoints, which derive their ETag from its version
+    public UserSnapshot getSnapshot(String clerkId) {
+        return findSnapshot(clerkId);
+    }
+
+    // Cache only (L1, then L2), never touches the DB; null when not cached (or cached as unknown)
+    public UserSnapshot getCachedSnapshot(String clerkId) {
+        if (clerkId == null) {
+            return null;
         }
-        return null;
+        Optional<UserSnapshot> cached = userCache.get(clerkId);
+        return cached != null ? withPending(cached.orElse(null)) : null;
+    }
+
+    // Public profiles for many users at once (feed rendering). Cached users are served from
+    // the cache, the rest are loaded with a single IN query. Unknown ids are left out.
+    public Map<String, PublicProfile> getPublicProfilesByClerkIds(Collection<String> clerkIds) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        for (String clerkId : clerkIds) {
+            if (clerkId != null && !clerkId.isBlank()) {
+                ids.add(clerkId);
+            }
+        }
+        Map<String, UserSnapshot> found = findSnapshots(ids);
+
+        Map<String, PublicProfile> result = new LinkedHashMap<>();
+        for (String clerkId : ids) {
+            UserSnapshot u = found.get(clerkId);
+            if (u != null) {
+                result.put(clerkId, PublicProfile.of(u));
+            }
+        }
+        return result;
+    }
+
+    // Reverse lookup of a verified wallet; null when nobody verified it.
+    // Throws IllegalArgumentException for malformed addresses.
+    public WalletOwner getWalletOwner(String walletAddress) {
+        String address = WalletAddresses.normalize(walletAddress);
+        return getWalletOwners(List.of(address)).get(address);
+    }
+
+    // Batch reverse lookup (e.g. transfer events of a block). Keys of the result are the
+    // normalized (lowercase) addresses; malformed and unknown addresses are left out.
+    public Map<String, WalletOwner> getWalletOwners(Collection<String> walletAddresses) {
+        LinkedHashSet<String> addresses = new LinkedHashSet<>();
+        for (String a : walletAddresses) {
+            if (a != null && WalletAddresses.isValid(a.trim())) {
+                addresses.add(WalletAddresses.normalize(a));
+            }
+        }
+
+        Map<String, String> owners = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        Map<String, Optional<String>> cachedAll = walletOwnerCache.getAll(addresses);
+        for (String address : addresses) {
+            Optional<String> cached = cachedAll.get(address);
+            if (cached == null) {
+                missing.add(address);
+            } else {
+                cached.ifPresent(clerkId -> owners.put(address, clerkId));
+            }
+        }
+        if (!missing.isEmpty()) {
+            long[] stamps = missing.stream().mapToLong(walletOwnerCache::stamp).toArray();
+            for (WalletOwnerRow row : userRepo.findVerifiedWalletOwners(missing)) {
+                owners.putIfAbsent(row.polygonWalletAddress(), row.clerkId());
+            }
+            for (int i = 0; i < missing.size(); i++) {
+                walletOwnerCache.put(missing.get(i), Optional.ofNullable(owners.get(missing.get(i))), stamps[i]);
+            }
+        }
+
+        Map<String, UserSnapshot> users = findSnapshots(new LinkedHashSet<>(owners.values()));
+        Map<String, WalletOwner> result = new LinkedHashMap<>();
+        for (String address : addresses) {
+            UserSnapshot u = users.get(owners.get(address));
+            // the user snapshot is authoritative, skip owners whose wallet changed meanwhile
+            if (u != null && address.equals(u.polygonWalletAddress()) && Boolean.TRUE.equals(u.polygonWalletVerified())) {
+                result.put(address, new WalletOwner(u.clerkId(), u.nickname()));
+            }
+        }
+        return result;
     }
 
     //get nickname by clerkId
     public String getNicknameByClerk(String clerkId) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            return existing.get().getNickname();
+        UserSnapshot u = findSnapshot(clerkId);
+        return u != null ? u.nickname() : null;
+    }
+
+    // All users ordered by id, one keyset page at a time. Throws IllegalArgumentException for
+    // a malformed cursor or a limit outside 1..MAX_PAGE_SIZE.
+    public UserPage listUsers(String cursor, int limit) {
+        checkPageSize(limit);
+        List<UserListRow> rows = userRepo.findPageAfterId(PageCursors.idAfter(cursor), limit + 1);
+        String next = rows.size() > limit ? PageCursors.ofId(rows.get(limit - 1).getId()) : null;
+        return UserPage.of(rows, limit, next);
+    }
+
+    // Users whose nickname starts with prefix (case-insensitive), ordered by nickname
+    public UserPage searchByNicknamePrefix(String prefix, String cursor, int limit) {
+        checkPageSize(limit);
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("prefix is required");
+        }
+        String from = prefix.trim().toLowerCase(Locale.ROOT);
+        // exclusive upper bound of the prefix range: bump the last code point
+        int last = from.codePointBefore(from.length());
+        String upper = from.substring(0, from.length() - Character.charCount(last))
+                + new String(Character.toChars(Math.min(last + 1, Character.MAX_CODE_POINT)));
+        List<UserListRow> rows = userRepo.findNicknamePrefixPage(from, upper, PageCursors.nicknameKeyAfter(cursor), limit + 1);
+        String next = rows.size() > limit ? PageCursors.ofNicknameKey(rows.get(limit - 1).getNicknameKey()) : null;
+        return UserPage.of(rows, limit, next);
+    }
+
+    private static void checkPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
         }
-        return null;
     }
 
     public String getClerkIdByNickname(String nickname) {
         if (nickname == null || nickname.isBlank()) return null;
-        Optional<User> existing = userRepo.findByNickname(nickname);
-        return existing.map(User::getClerkId).orElse(null);
+        String buffered = writeBuffer.clerkIdWithNickname(nickname);
+        if (buffered != null) {
+            return buffered;
+        }
+        String owner = userRepo.findClerkIdByNickname(nickname).orElse(null);
+        // the owner may have renamed themselves with an edit that is still buffered
+        ProfileWriteBuffer.Pending p = writeBuffer.pending(owner);
+        return p != null && p.nickname() != null && !p.nickname().equalsIgnoreCase(nickname) ? null : owner;
     }
 
     //get themes by clerkId
     public String[] getThemesByClerk(String clerkId) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            return new String[]{
-                u.getTheme1() != null ? u.getTheme1().name() : null,
-                u.getTheme2() != null ? u.getTheme2().name() : null,
-                u.getTheme3() != null ? u.getTheme3().name() : null
-            };
+        UserSnapshot u = findSnapshot(clerkId);
+        if (u == null) {
+            return null;
+        }
+        return new String[]{
+            u.theme1() != null ? u.theme1().name() : null,
+            u.theme2() != null ? u.theme2().name() : null,
+            u.theme3() != null ? u.theme3().name() : null
+        };
+    }
+
+    // Runs a conditional update (see UserRepo) and returns the new row version, or null when
+    // the user does not exist. With expected (If-Match) there is a single attempt and a
+    // changed or re-created row is a conflict. Without it the update is based on the current
+    // version (cached snapshot first) and retried on conflict up to users.write.max-retries
+    // times. Conflicts surface as OptimisticLockingFailureException.
+    private UserVersion updateVersioned(String clerkId, UserVersion expected, VersionedUpdate update) {
+        if (writeBuffer.pending(clerkId) != null) {
+            // buffered edits go first, so the row is at the version the client was handed
+            writeBuffer.flush(clerkId);
+        }
+        UserVersion at = expected;
+        if (at == null) {
+            UserSnapshot cached = getCachedSnapshot(clerkId);
+            at = cached != null ? new UserVersion(cached.id(), cached.version())
+                    : userRepo.findVersionByClerkId(clerkId).orElse(null);
+        }
+        for (int attempt = 0; at != null; attempt++) {
+            if (update.apply(at.id(), at.version()) > 0) {
+                userCache.invalidate(clerkId);
+                return new UserVersion(at.id(), at.version() + 1);
+            }
+            // gone or changed since the version was read, the cached snapshot is stale either way
+            userCache.invalidate(clerkId);
+            UserVersion current = userRepo.findVersionByClerkId(clerkId).orElse(null);
+            if (current == null) {
+                return null;
+            }
+            if (expected != null || attempt >= maxWriteRetries) {
+                throw new OptimisticLockingFailureException("User " + clerkId + " was modified concurrently");
+            }
+            at = current;
         }
         return null;
     }
 
-    //set themes by clerkId
-    public void setThemesByClerk(String clerkId, String theme1, String theme2, String theme3) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            u.setTheme1(isValidTag(theme1) ? User.Tag.valueOf(theme1) : null);
-            u.setTheme2(isValidTag(theme2) ? User.Tag.valueOf(theme2) : null);
-            u.setTheme3(isValidTag(theme3) ? User.Tag.valueOf(theme3) : null);
-            userRepo.save(u);
+    @FunctionalInterface
+    private interface VersionedUpdate {
+        // rows updated, 0 when the row is gone or no longer at the version
+        int apply(int id, long version);
+    }
+
+    //set themes by clerkId, returns the new version or null when the user does not exist
+    public UserVersion setThemesByClerk(String clerkId, String theme1, String theme2, String theme3, UserVersion expected) {
+        // unknown, blank and "null" themes clear the slot
+        User.Tag t1 = User.Tag.fromName(theme1);
+        User.Tag t2 = User.Tag.fromName(theme2);
+        User.Tag t3 = User.Tag.fromName(theme3);
+        if (writeBuffer.isEnabled()) {
+            UserSnapshot u = findSnapshot(clerkId);
+            return u != null ? new UserVersion(u.id(), writeBuffer.bufferThemes(u, t1, t2, t3, expected)) : null;
         }
+        UserVersion version = updateVersioned(clerkId, expected, (id, v) -> userRepo.updateThemesById(id, v, t1, t2, t3));
+        if (version != null) {
+            // index what is stored now (the snapshot was invalidated, so this reads it back)
+            UserSnapshot u = findSnapshot(clerkId);
+            if (u != null) {
+                themeIndex.update(u.id(), u.theme1(), u.theme2(), u.theme3());
+            }
+        }
+        return version;
     }
 
-    private boolean isValidTag(String tag) {
-        if (tag == null || tag.isBlank() || tag.equalsIgnoreCase("null")) {
-            return false;
+    // Users with all (matchAll) or any of the given themes, ordered by id, keyset paginated.
+    // Matching runs on the in-memory ThemeIndex, only the page itself is read from the DB.
+    // Returns null while the index is still being built after startup.
+    public UserPage findByThemes(Collection<String> themes, boolean matchAll, String cursor, int limit) {
+        checkPageSize(limit);
+        LinkedHashSet<User.Tag> tags = new LinkedHashSet<>();
+        for (String theme : themes) {
+            User.Tag tag = User.Tag.fromName(theme);
+            if (tag == null) {
+                throw new IllegalArgumentException("Unknown theme: " + theme);
+            }
+            tags.add(tag);
         }
-        try {
-            User.Tag.valueOf(tag);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+        if (tags.isEmpty()) {
+            throw new IllegalArgumentException("At least one theme is required");
+        }
+        if (!themeIndex.isReady()) {
+            return null;
         }
+        int[] ids = themeIndex.query(tags, matchAll, PageCursors.idAfter(cursor), limit + 1);
+        List<Integer> page = new ArrayList<>(Math.min(ids.length, limit));
+        for (int i = 0; i < ids.length && i < limit; i++) {
+            page.add(ids[i]);
+        }
+        List<UserListRow> rows = page.isEmpty() ? List.of() : userRepo.findListRowsByIdIn(page);
+        String next = ids.length > limit ? PageCursors.ofId(ids[limit - 1]) : null;
+        return UserPage.of(rows, limit, next);
     }
+
     
-    //set nickname by clerkId
-    public void setNicknameByClerk(String clerkId, String nickname) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            u.setNickname(nickname);
-            userRepo.save(u);
+    //set nickname by clerkId, returns the new version or null when the user does not exist
+    public UserVersion setNicknameByClerk(String clerkId, String nickname, UserVersion expected) {
+        if (writeBuffer.isEnabled()) {
+            UserSnapshot u = findSnapshot(clerkId);
+            if (u == null) {
+                return null;
+            }
+            // the unique index only sees the nickname at flush time, turn away taken ones now
+            String owner = getClerkIdByNickname(nickname);
+            if (owner != null && !owner.equals(clerkId)) {
+                throw new DataIntegrityViolationException("Nickname already taken");
+            }
+            return new UserVersion(u.id(), writeBuffer.bufferNickname(u, nickname, expected));
         }
+        return updateVersioned(clerkId, expected, (id, v) -> userRepo.updateNicknameById(id, v, nickname));
     }
 
     //delete user by clerkId
     public void deleteUserByClerkId(String clerkId) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            userRepo.delete(existing.get());
+        UserSnapshot before = findSnapshot(clerkId);
+        writeBuffer.discard(clerkId);
+        userRepo.deleteByClerkId(clerkId);
+        userCache.invalidate(clerkId);
+        if (before != null) {
+            walletOwnerCache.invalidate(before.polygonWalletAddress());
+            themeIndex.remove(before.id());
         }
     }
 
-    public void verifyPolygonWallet(String clerkId,  String walletAddress, String message, String signature) {
-        User user = userRepo.findByClerkId(clerkId)
-                .orElseThrow(() -> new IllegalStateException("User not found"));
+    public WalletChallenge issuePolygonWalletChallenge(String clerkId, String walletAddress) {
+        String address = WalletAddresses.normalize(walletAddress);
+        if (findSnapshot(clerkId) == null) {
+            throw new IllegalStateException("User not found");
+        }
+        return walletChallengeStore.issue(clerkId, address);
+    }
+
+    // returns the new version of the user row
+    public UserVersion verifyPolygonWallet(String clerkId, String walletAddress, String nonce, String signature, UserVersion expected) {
+        String address = WalletAddresses.normalize(walletAddress);
+        // cheap existence check (usually cached) before doing the signature math
+        UserSnapshot before = findSnapshot(clerkId);
+        if (before == null) {
+            throw new IllegalStateException("User not found");
+        }
+        // versions only grow: another row, or a snapshot already past the expected version,
+        // means If-Match can't hold
+        if (expected != null && (!before.id().equals(expected.id()) || before.version() > expected.version())) {
+            throw new OptimisticLockingFailureException("User " + clerkId + " was modified concurrently");
+        }
+
+        // one attempt per challenge: the nonce is gone after this, whatever the outcome
+        WalletChallenge challenge = walletChallengeStore.consume(nonce);
+        if (challenge == null || !challenge.clerkId().equals(clerkId) || !challenge.walletAddress().equals(address)) {
+            throw new IllegalArgumentException("Unknown, expired or foreign wallet challenge");
+        }
 
-        boolean valid = walletSignatureVerifier.verify(message, signature, walletAddress);
+        // may throw RejectedExecutionException when the verification pool is saturated
+        boolean valid = walletVerificationService.verify(challenge.message(), signature, address);
 
         if (!valid) {
             throw new IllegalArgumentException("Wallet ownership verification failed");
         }
 
-        user.setPolygonWalletAddress(walletAddress);
-        user.setPolygonWalletVerified(true);
-        userRepo.save(user);
+        UserVersion version = updateVersioned(clerkId, expected,
+                (id, v) -> userRepo.updateVerifiedPolygonWalletById(id, v, address));
+        walletOwnerCache.invalidate(address);
+        walletOwnerCache.invalidate(before.polygonWalletAddress());
+        if (version == null) {
+            throw new IllegalStateException("User not found");
+        }
+        return version;
+    }
+
+    public WalletChallengeStore.ChallengeStats getWalletChallengeStats() {
+        return walletChallengeStore.stats();
     }
 
     public Boolean getPolygonWalletStatus(String clerkId) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            return u.getPolygonWalletVerified();
-        }
-        return null;
+        UserSnapshot u = findSnapshot(clerkId);
+        return u != null ? u.polygonWalletVerified() : null;
     }
 
-    public String getPublicPolygonWalletAddress(String clerkId) {
-        Optional<User> existing = userRepo.findByClerkId(clerkId);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            return u.getPolygonWalletAddress();
+
+    public record PublicProfile(String nickname, String polygonWalletAddress) {
+        public static PublicProfile of(UserSnapshot u) {
+            return new PublicProfile(u.nickname(), WalletAddresses.toChecksum(u.polygonWalletAddress()));
         }
-        return null;
     }
 
+    public record WalletOwner(String clerkId, String nickname) { }
+
+    // PublicProfile plus the clerkId it belongs to
+    public record ListedUser(String clerkId, String nickname, String polygonWalletAddress) { }
 
-    public record PublicProfile(String nickname) { }
+    // nextCursor is null on the last page
+    public record UserPage(List<ListedUser> items, String nextCursor) {
+        // rows were fetched with limit + 1 to find out whether another page follows
+        static UserPage of(List<UserListRow> rows, int limit, String nextCursor) {
+            List<ListedUser> items = new ArrayList<>(Math.min(rows.size(), limit));
+            for (UserListRow row : rows.subList(0, Math.min(rows.size(), limit))) {
+                items.add(new ListedUser(row.getClerkId(), row.getNickname(),
+                        WalletAddresses.toChecksum(row.getPolygonWalletAddress())));
+            }
+            return new UserPage(items, nextCursor);
+        }
+    }
 }
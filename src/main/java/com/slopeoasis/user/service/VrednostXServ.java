@@ -1,5 +1,6 @@
 package com.slopeoasis.user.service;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import com.slopeoasis.user.entity.VrednostX;
@@ -7,6 +8,7 @@ import com.slopeoasis.user.repository.VrednostXRepo;
 
 import jakarta.annotation.PostConstruct;
 
+@Profile("!reactive")
 @Service
 public class VrednostXServ {
     private final VrednostXRepo vredXRe;
@@ -0,0 +1,178 @@
+package com.slopeoasis.user.web3j;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single-replica challenge store: nonce -> challenge in a ConcurrentHashMap, expired
+ * through a hashed time wheel.
+ *
+ * Every challenge has the same TTL, so it lands in the wheel slot of the tick it expires
+ * on and the wheel never needs more than one lap. Each tick drains exactly one slot, so
+ * expiry costs O(1) per challenge and never scans the whole map. Consumed challenges
+ * left in a slot are skipped when the slot is drained.
+ *
+ * A user holds at most wallet.challenge.max-per-user challenges; a new one replaces their
+ * oldest, so a single user can't use up max-outstanding for everybody else.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.challenge.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryWalletChallengeStore implements WalletChallengeStore {
+    private static final long TICK_MILLIS = 1000;
+
+    private final Map<String, WalletChallenge> challenges = new ConcurrentHashMap<>();
+    // clerkId -> nonces of the user's challenges, oldest first; only touched inside compute
+    private final Map<String, Deque<String>> byClerk = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private final long ttlMillis;
+    private final int maxOutstanding;
+    private final int maxPerUser;
+    private final LongSupplier clock;
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private long lastTick;
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public InMemoryWalletChallengeStore(@Value("${wallet.challenge.ttl-seconds:300}") long ttlSeconds,
+                                        @Value("${wallet.challenge.max-outstanding:100000}") int maxOutstanding,
+                                        @Value("${wallet.challenge.max-per-user:3}") int maxPerUser) {
+        this(ttlSeconds, maxOutstanding, maxPerUser, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    InMemoryWalletChallengeStore(long ttlSeconds, int maxOutstanding, int maxPerUser, LongSupplier clock) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxOutstanding = maxOutstanding;
+        this.maxPerUser = maxPerUser;
+        this.clock = clock;
+        // one lap covers the TTL plus the partial ticks at both ends
+        this.wheel = new Queue[(int) (ttlMillis / TICK_MILLIS) + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = clock.getAsLong() / TICK_MILLIS;
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wallet-challenge-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::expireDue, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @Override
+    public WalletChallenge issue(String clerkId, String walletAddress) {
+        if (challenges.size() >= maxOutstanding) {
+            throw new RejectedExecutionException("Too many outstanding wallet challenges");
+        }
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        WalletChallenge challenge = WalletChallenge.create(clerkId, walletAddress, Instant.ofEpochMilli(expiresAt));
+        byClerk.compute(clerkId, (id, nonces) -> {
+            if (nonces == null) {
+                nonces = new ArrayDeque<>(maxPerUser);
+            }
+            // the user's oldest challenges make room for the new one
+            while (nonces.size() >= maxPerUser) {
+                challenges.remove(nonces.poll());
+            }
+            nonces.add(challenge.nonce());
+            challenges.put(challenge.nonce(), challenge);
+            return nonces;
+        });
+        // the slot drained on the first tick at or after expiry
+        long tick = (expiresAt + TICK_MILLIS - 1) / TICK_MILLIS;
+        wheel[(int) (tick % wheel.length)].add(challenge.nonce());
+        issued.incrementAndGet();
+        return challenge;
+    }
+
+    @Override
+    public WalletChallenge consume(String nonce) {
+        WalletChallenge challenge = challenges.remove(nonce);
+        if (challenge == null) {
+            return null;
+        }
+        forget(challenge);
+        if (challenge.expiresAtMillis() <= clock.getAsLong()) {
+            // expired but its slot hasn't been drained yet
+            expired.incrementAndGet();
+            return null;
+        }
+        consumed.incrementAndGet();
+        return challenge;
+    }
+
+    @Override
+    public ChallengeStats stats() {
+        return new ChallengeStats(challenges.size(), issued.get(), consumed.get(), expired.get());
+    }
+
+    private void forget(WalletChallenge challenge) {
+        byClerk.computeIfPresent(challenge.clerkId(), (id, nonces) -> {
+            nonces.remove(challenge.nonce());
+            return nonces.isEmpty() ? null : nonces;
+        });
+    }
+
+    /**
+     * Drains the wheel slots of every tick since the last run.
+     */
+    synchronized void expireDue() {
+        long now = clock.getAsLong();
+        long currentTick = now / TICK_MILLIS;
+        // after a long pause one full lap covers every slot
+        long from = Math.max(lastTick + 1, currentTick - wheel.length + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            Queue<String> slot = wheel[(int) (tick % wheel.length)];
+            // only what is in the slot now, nonces added while draining belong to the next lap
+            for (int n = slot.size(); n > 0; n--) {
+                String nonce = slot.poll();
+                if (nonce == null) {
+                    break;
+                }
+                WalletChallenge challenge = challenges.get(nonce);
+                if (challenge == null) {
+                    continue;
+                }
+                if (challenge.expiresAtMillis() > now) {
+                    slot.add(nonce);
+                } else if (challenges.remove(nonce, challenge)) {
+                    forget(challenge);
+                    expired.incrementAndGet();
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+}
@@ -0,0 +1,155 @@
+package com.slopeoasis.user.web3j;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Challenge store shared by all replicas (wallet.challenge.store=jdbc), backed by the
+ * wallet_challenges table.
+ *
+ * Consuming is a single DELETE ... RETURNING, so two replicas can never both accept the
+ * same nonce. Expired rows are purged periodically through the expires_at index, which
+ * only touches rows that are actually expired. Expiry is always judged by the database
+ * clock, also when a challenge is issued, so replicas with skewed clocks agree.
+ *
+ * Like the in-memory store, a user holds at most wallet.challenge.max-per-user challenges
+ * (a new one replaces the oldest) and all users together at most max-outstanding. Issuing
+ * locks the user's row for the trimming and the insert, so concurrent requests of one user
+ * on different replicas take turns. The global limit is checked by the insert itself; two
+ * different users issuing at the same moment can still pass it by one each, it is a guard
+ * against floods, not an exact count.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.challenge.store", havingValue = "jdbc")
+public class JdbcWalletChallengeStore implements WalletChallengeStore {
+    private static final Logger log = LoggerFactory.getLogger(JdbcWalletChallengeStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writes;
+    private final long ttlSeconds;
+    private final int maxOutstanding;
+    private final int maxPerUser;
+    private final long purgeIntervalSeconds;
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private ScheduledExecutorService purger;
+
+    public JdbcWalletChallengeStore(JdbcTemplate jdbcTemplate,
+                                    @Value("${wallet.challenge.ttl-seconds:300}") long ttlSeconds,
+                                    @Value("${wallet.challenge.max-outstanding:100000}") int maxOutstanding,
+                                    @Value("${wallet.challenge.max-per-user:3}") int maxPerUser,
+                                    @Value("${wallet.challenge.purge-interval-seconds:60}") long purgeIntervalSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        // its own JDBC transaction manager, the reactive profile only has an R2DBC one
+        this.writes = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        this.ttlSeconds = ttlSeconds;
+        this.maxOutstanding = maxOutstanding;
+        this.maxPerUser = maxPerUser;
+        this.purgeIntervalSeconds = purgeIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wallet-challenge-purge");
+            t.setDaemon(true);
+            return t;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    @Override
+    public WalletChallenge issue(String clerkId, String walletAddress) {
+        WalletChallenge challenge = writes.execute(status -> {
+            // concurrent issues for one user queue on the user's row, so the limit below can't be overshot
+            List<Integer> locked = jdbcTemplate.queryForList(
+                    "SELECT id FROM users WHERE clerk_id = ? FOR UPDATE", Integer.class, clerkId);
+            if (locked.isEmpty()) {
+                throw new IllegalStateException("User not found");
+            }
+            // the user's oldest challenges make room for the new one
+            jdbcTemplate.update("DELETE FROM wallet_challenges WHERE nonce IN (SELECT nonce FROM wallet_challenges "
+                    + "WHERE clerk_id = ? ORDER BY expires_at DESC OFFSET ?)", clerkId, maxPerUser - 1);
+            Instant expiresAt = jdbcTemplate.queryForObject("SELECT now() + make_interval(secs => ?)",
+                    (rs, i) -> rs.getTimestamp(1).toInstant(), (double) ttlSeconds);
+            WalletChallenge created = WalletChallenge.create(clerkId, walletAddress, expiresAt);
+            int inserted = jdbcTemplate.update(
+                    "INSERT INTO wallet_challenges (nonce, clerk_id, wallet_address, message, expires_at) "
+                            + "SELECT ?, ?, ?, ?, ? WHERE (SELECT count(*) FROM wallet_challenges) < ?",
+                    created.nonce(), clerkId, walletAddress, created.message(), Timestamp.from(expiresAt),
+                    maxOutstanding);
+            if (inserted == 0) {
+                throw new RejectedExecutionException("Too many outstanding wallet challenges");
+            }
+            return created;
+        });
+        issued.incrementAndGet();
+        return challenge;
+    }
+
+    @Override
+    public WalletChallenge consume(String nonce) {
+        // expiry is judged by the database clock so replicas with skewed clocks agree
+        List<ConsumedRow> rows = jdbcTemplate.query(
+                "DELETE FROM wallet_challenges WHERE nonce = ? "
+                        + "RETURNING clerk_id, wallet_address, message, expires_at, expires_at > now() AS valid",
+                (rs, i) -> new ConsumedRow(
+                        new WalletChallenge(nonce, rs.getString("clerk_id"), rs.getString("wallet_address"),
+                                rs.getString("message"), rs.getTimestamp("expires_at").toInstant()),
+                        rs.getBoolean("valid")),
+                nonce);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        if (!rows.get(0).valid()) {
+            expired.incrementAndGet();
+            return null;
+        }
+        consumed.incrementAndGet();
+        return rows.get(0).challenge();
+    }
+
+    @Override
+    public ChallengeStats stats() {
+        Long outstanding = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet_challenges WHERE expires_at > now()", Long.class);
+        return new ChallengeStats(outstanding != null ? outstanding : 0, issued.get(), consumed.get(), expired.get());
+    }
+
+    void purgeExpired() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM wallet_challenges WHERE expires_at <= now()");
+            expired.addAndGet(purged);
+        } catch (Exception e) {
+            log.warn("Wallet challenge purge failed: {}", e.getMessage());
+        }
+    }
+
+    private record ConsumedRow(WalletChallenge challenge, boolean valid) { }
+}
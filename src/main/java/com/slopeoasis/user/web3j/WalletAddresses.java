@@ -0,0 +1,50 @@
+package com.slopeoasis.user.web3j;
+
+import org.web3j.crypto.Keys;
+
+/**
+ * Canonical form of Polygon (EVM) wallet addresses.
+ * Addresses are stored lowercase so lookups are plain index matches, and shown
+ * to clients in EIP-55 checksummed form.
+ */
+public final class WalletAddresses {
+
+    private WalletAddresses() {
+    }
+
+    public static boolean isValid(String address) {
+        if (address == null || address.length() != 42 || !address.startsWith("0x")) {
+            return false;
+        }
+        for (int i = 2; i < 42; i++) {
+            if (!isHexDigit(address.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ASCII only: Character.digit also accepts other scripts' digits, e.g. fullwidth U+FF10..FF19
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * Lowercase form used for storage and lookups.
+     * Throws IllegalArgumentException when the address is not 0x + 40 hex chars.
+     */
+    public static String normalize(String address) {
+        String trimmed = address != null ? address.trim() : null;
+        if (!isValid(trimmed)) {
+            throw new IllegalArgumentException("Invalid wallet address: " + address);
+        }
+        return trimmed.toLowerCase();
+    }
+
+    /**
+     * EIP-55 checksummed form for display; values that aren't addresses (e.g. "") are returned as is.
+     */
+    public static String toChecksum(String address) {
+        return isValid(address) ? Keys.toChecksumAddress(address) : address;
+    }
+}
@@ -0,0 +1,28 @@
+package com.slopeoasis.user.web3j;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * A server-issued nonce the user signs to prove wallet ownership. Bound to one
+ * user and one (normalized) wallet address, valid until expiresAt and only once.
+ */
+public record WalletChallenge(String nonce, String clerkId, String walletAddress, String message, Instant expiresAt) {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    static WalletChallenge create(String clerkId, String walletAddress, Instant expiresAt) {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        String nonce = HexFormat.of().formatHex(bytes);
+        String message = "Sign this message to verify your wallet on SlopeOasis.\n\n"
+                + "Wallet: " + walletAddress + "\n"
+                + "Nonce: " + nonce + "\n"
+                + "Expires: " + expiresAt;
+        return new WalletChallenge(nonce, clerkId, walletAddress, message, expiresAt);
+    }
+
+    public long expiresAtMillis() {
+        return expiresAt.toEpochMilli();
+    }
+}
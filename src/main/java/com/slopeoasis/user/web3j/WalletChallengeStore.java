@@ -0,0 +1,22 @@
+package com.slopeoasis.user.web3j;
+
+/**
+ * Outstanding wallet challenges. A challenge can be consumed exactly once; after that,
+ * or once it expired, consume returns null.
+ */
+public interface WalletChallengeStore {
+
+    /**
+     * Issues and stores a new challenge. Throws RejectedExecutionException when too many are outstanding.
+     */
+    WalletChallenge issue(String clerkId, String walletAddress);
+
+    /**
+     * Atomically removes the challenge and returns it, or null when it is unknown, already used or expired.
+     */
+    WalletChallenge consume(String nonce);
+
+    ChallengeStats stats();
+
+    record ChallengeStats(long outstanding, long issued, long consumed, long expired) { }
+}
@@ -10,24 +10,32 @@ import org.web3j.utils.Numeric;
 
 public class WalletSignatureVerifier {
     public boolean verify(String message, String signature, String expectedAddress) {
+        String recoveredAddress = recoverAddress(message, signature);
+        return recoveredAddress != null && recoveredAddress.equalsIgnoreCase(expectedAddress);
+    }
+
+    /**
+     * Recovers the signer of a personal_sign (EIP-191 prefixed) message.
+     * Returns the lowercase 0x address, or null when the signature is malformed or unrecoverable.
+     */
+    public String recoverAddress(String message, String signature) {
         byte[] msgBytes = message.getBytes(StandardCharsets.UTF_8);
-        byte[] sigBytes = Numeric.hexStringToByteArray(signature);
-        SignatureData sig = new SignatureData(
-                sigBytes[64],
-                java.util.Arrays.copyOfRange(sigBytes, 0, 32),
-                java.util.Arrays.copyOfRange(sigBytes, 32, 64)
-        );
         try {
+            byte[] sigBytes = Numeric.hexStringToByteArray(signature);
+            if (sigBytes.length != 65) {
+                return null;
+            }
+            SignatureData sig = new SignatureData(
+                    sigBytes[64],
+                    java.util.Arrays.copyOfRange(sigBytes, 0, 32),
+                    java.util.Arrays.copyOfRange(sigBytes, 32, 64)
+            );
             BigInteger recoveredKey =
                     Sign.signedPrefixedMessageToKey(msgBytes, sig);
 
-            String recoveredAddress =
-                    "0x" + Keys.getAddress(recoveredKey);
-
-            return recoveredAddress.equalsIgnoreCase(expectedAddress);
+            return "0x" + Keys.getAddress(recoveredKey);
         } catch (Exception e) {
-            return false;
+            return null;
         }
     }
 }
-
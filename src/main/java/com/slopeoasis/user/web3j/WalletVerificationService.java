@@ -0,0 +1,109 @@
+package com.slopeoasis.user.web3j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs wallet signature recovery (secp256k1) off the request threads.
+ *
+ * Recoveries run on a fixed-size worker pool with a bounded queue. When the queue is
+ * full, or a result takes longer than the configured timeout, a RejectedExecutionException
+ * is thrown and the controller answers 429. Messages are capped in length. Results are not
+ * memoized: every signature is over a one-time challenge that is consumed before it is
+ * verified, so the same (message, signature) never comes back.
+ */
+@Service
+public class WalletVerificationService {
+    private final WalletSignatureVerifier verifier = new WalletSignatureVerifier();
+    private final ThreadPoolExecutor executor;
+    private final int maxMessageLength;
+    private final long timeoutMs;
+    private final Timer recoverTimer;
+
+    public WalletVerificationService(@Value("${wallet.verify.threads:0}") int threads,
+                                     @Value("${wallet.verify.queue-capacity:64}") int queueCapacity,
+                                     @Value("${wallet.verify.timeout-ms:2000}") long timeoutMs,
+                                     @Value("${wallet.verify.max-message-length:1024}") int maxMessageLength,
+                                     MeterRegistry meterRegistry) {
+        // recovery is pure CPU work, one thread per core unless configured otherwise
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "wallet-verify-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMs = timeoutMs;
+        this.maxMessageLength = maxMessageLength;
+        this.recoverTimer = Timer.builder("wallet.signature.recover")
+                .description("secp256k1 public key recovery on the worker pool")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("wallet.verify.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * True when the signature over message was produced by expectedAddress.
+     * Throws IllegalArgumentException for oversized input and RejectedExecutionException
+     * when the worker pool is saturated.
+     */
+    public boolean verify(String message, String signature, String expectedAddress) {
+        if (message.length() > maxMessageLength) {
+            throw new IllegalArgumentException("Message longer than " + maxMessageLength + " characters");
+        }
+        // 65 bytes as hex, with or without 0x
+        if (signature.length() > 132) {
+            throw new IllegalArgumentException("Signature too long");
+        }
+
+        String address = recover(message, signature);
+        return address != null && address.equalsIgnoreCase(expectedAddress);
+    }
+
+    private String recover(String message, String signature) {
+        Future<String> result = executor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                return verifier.recoverAddress(message, signature);
+            } finally {
+                recoverTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new RejectedExecutionException("Wallet verification timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for wallet verification");
+        } catch (ExecutionException e) {
+            // recoverAddress doesn't throw, treat anything unexpected as a failed recovery
+            return null;
+        }
+    }
+}
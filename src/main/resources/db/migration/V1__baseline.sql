@@ -0,0 +1,19 @@
+-- Schema as previously created by hibernate ddl-auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate),
+-- so this script only runs against an empty database.
+
+CREATE TABLE IF NOT EXISTS users (
+    id                      INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    clerk_id                VARCHAR(255) NOT NULL UNIQUE,
+    nickname                VARCHAR(255),
+    theme1                  VARCHAR(255),
+    theme2                  VARCHAR(255),
+    theme3                  VARCHAR(255),
+    polygon_wallet_address  VARCHAR(255),
+    polygon_wallet_verified BOOLEAN
+);
+
+CREATE TABLE IF NOT EXISTS vrednost_x (
+    id       INTEGER NOT NULL PRIMARY KEY,
+    vrednost INTEGER NOT NULL
+);
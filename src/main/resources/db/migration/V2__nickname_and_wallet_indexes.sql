@@ -0,0 +1,39 @@
+-- Nicknames become unique regardless of case. Empty nickname means "not set"
+-- (default for new users) and is excluded from the constraint.
+-- Existing case-insensitive duplicates keep the oldest owner; later ones get an _<id> suffix,
+-- or _<id>_2, _<id>_3, ... when that name is taken too (e.g. a user really called "bob_7").
+DO $$
+DECLARE
+    dup RECORD;
+    suffix TEXT;
+    candidate TEXT;
+    attempt INT;
+BEGIN
+    FOR dup IN
+        SELECT u.id, u.nickname FROM users u
+        WHERE u.nickname <> ''
+          AND EXISTS (
+              SELECT 1 FROM users o
+              WHERE lower(o.nickname) = lower(u.nickname) AND o.id < u.id
+          )
+        ORDER BY u.id
+    LOOP
+        attempt := 1;
+        LOOP
+            suffix := '_' || dup.id || CASE WHEN attempt > 1 THEN '_' || attempt ELSE '' END;
+            -- stays within VARCHAR(255)
+            candidate := left(dup.nickname, 255 - length(suffix)) || suffix;
+            -- renames done earlier in this loop are visible here
+            EXIT WHEN NOT EXISTS (SELECT 1 FROM users WHERE lower(nickname) = lower(candidate));
+            attempt := attempt + 1;
+        END LOOP;
+        UPDATE users SET nickname = candidate WHERE id = dup.id;
+    END LOOP;
+END $$;
+
+CREATE UNIQUE INDEX IF NOT EXISTS users_nickname_lower_uq
+    ON users (lower(nickname))
+    WHERE nickname <> '';
+
+CREATE INDEX IF NOT EXISTS users_polygon_wallet_address_idx
+    ON users (polygon_wallet_address);
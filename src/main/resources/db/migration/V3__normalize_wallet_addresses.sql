@@ -0,0 +1,5 @@
+-- Wallet addresses are stored lowercase from now on (see WalletAddresses.normalize),
+-- so reverse lookups are exact matches on users_polygon_wallet_address_idx.
+UPDATE users
+SET polygon_wallet_address = lower(polygon_wallet_address)
+WHERE polygon_wallet_address <> lower(polygon_wallet_address);
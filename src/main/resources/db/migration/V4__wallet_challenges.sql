@@ -0,0 +1,12 @@
+-- Outstanding wallet ownership challenges, used when wallet.challenge.store=jdbc.
+-- Rows are deleted when consumed; expired ones are purged through expires_at.
+CREATE TABLE IF NOT EXISTS wallet_challenges (
+    nonce          VARCHAR(64)  PRIMARY KEY,
+    clerk_id       VARCHAR(255) NOT NULL,
+    wallet_address VARCHAR(42)  NOT NULL,
+    message        TEXT         NOT NULL,
+    expires_at     TIMESTAMPTZ  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS wallet_challenges_expires_at_idx
+    ON wallet_challenges (expires_at);
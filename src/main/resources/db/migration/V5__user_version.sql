@@ -0,0 +1,3 @@
+-- Row version, incremented by every UPDATE of a user. Public responses use
+-- "clerkId-version" as their ETag, so revalidation only needs the version.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
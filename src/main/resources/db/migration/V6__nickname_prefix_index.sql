@@ -0,0 +1,6 @@
+-- Nickname prefix search (GET /users/admin/users/search). Byte-wise ("C") order makes the
+-- prefix a plain range, so one index range scan serves the match, the ORDER BY and the
+-- keyset cursor regardless of the database collation. Listing by id uses the primary key.
+CREATE INDEX IF NOT EXISTS users_nickname_prefix_idx
+    ON users ((lower(nickname) COLLATE "C"))
+    WHERE nickname <> '';
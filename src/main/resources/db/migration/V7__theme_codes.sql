@@ -0,0 +1,19 @@
+-- Themes as smallint codes (User.Tag ordinal) instead of enum names, plus theme_mask with one
+-- bit per theme. The mask is a generated column, so it can never disagree with the three slots.
+-- Unknown names become NULL. Both statements rewrite the table (ACCESS EXCLUSIVE while they run).
+-- Hibernate's ddl-auto may have added enum name checks on databases that predate Flyway
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_theme1_check;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_theme2_check;
+ALTER TABLE users DROP CONSTRAINT IF EXISTS users_theme3_check;
+
+ALTER TABLE users
+    ALTER COLUMN theme1 TYPE SMALLINT USING array_position(
+        ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER']::varchar[], theme1) - 1,
+    ALTER COLUMN theme2 TYPE SMALLINT USING array_position(
+        ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER']::varchar[], theme2) - 1,
+    ALTER COLUMN theme3 TYPE SMALLINT USING array_position(
+        ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER']::varchar[], theme3) - 1;
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS theme_mask SMALLINT NOT NULL GENERATED ALWAYS AS (
+    (COALESCE(1 << theme1, 0) | COALESCE(1 << theme2, 0) | COALESCE(1 << theme3, 0))::smallint
+) STORED;
@@ -0,0 +1,3 @@
+-- Per-user challenge limit (wallet.challenge.max-per-user): finds a user's challenges, newest first.
+CREATE INDEX IF NOT EXISTS wallet_challenges_clerk_id_idx
+    ON wallet_challenges (clerk_id, expires_at);
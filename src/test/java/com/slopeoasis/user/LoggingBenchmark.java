@@ -0,0 +1,124 @@
+package com.slopeoasis.user;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+import net.logstash.logback.encoder.LogstashEncoder;
+
+/**
+ * Per-call latency of one log line written from many request threads at once: the old
+ * synchronous println (console lock + write per line), the JSON encoder written
+ * synchronously, and the JSON encoder behind the ring-buffer appender used by
+ * logback-spring.xml. SampleTime mode reports p99/p99.9 per benchmark:
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.args="LoggingBenchmark"
+ *
+ * The async appender drops events once its ring buffer is full instead of blocking, so at
+ * saturation its numbers are the cost of a caller that never waits on I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(16)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private Path dir;
+    private PrintStream stdout;
+    private LoggerContext context;
+    private Logger syncJson;
+    private Logger asyncJson;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("logging-bench");
+        // what System.out does: a synchronized, autoflushing PrintStream
+        stdout = new PrintStream(new FileOutputStream(dir.resolve("stdout.log").toFile()), true);
+
+        context = new LoggerContext();
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        context.start();
+        syncJson = logger("sync", fileAppender("sync.json"));
+
+        LoggingEventAsyncDisruptorAppender async = new LoggingEventAsyncDisruptorAppender();
+        async.setContext(context);
+        async.setRingBufferSize(8192);
+        async.addAppender(fileAppender("async.json"));
+        async.start();
+        asyncJson = logger("async", async);
+
+        MDC.put("requestId", "0f8fad5b-d9cb-469f-a165-70867728950e");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        MDC.clear();
+        stdout.close();
+        context.stop();
+        try (var files = Files.list(dir)) {
+            for (Path f : files.toList()) {
+                Files.delete(f);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(String name) {
+        LogstashEncoder encoder = new LogstashEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(dir.resolve(name).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    private Logger logger(String name, ch.qos.logback.core.Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(name);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    @Benchmark
+    public void stdoutPrintln() {
+        stdout.println("POST /users called; usid=user_2bench");
+    }
+
+    @Benchmark
+    public void syncJsonLogger() {
+        syncJson.info("POST /users called");
+    }
+
+    @Benchmark
+    public void asyncJsonLogger() {
+        asyncJson.info("POST /users called");
+    }
+}
@@ -0,0 +1,62 @@
+package com.slopeoasis.user.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ExpiringLruCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void expiredEntriesAreMisses() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, now::get);
+        cache.put("a", "A", 2_000);
+
+        assertEquals("A", cache.get("a"));
+        now.set(2_000);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, now::get);
+        cache.put("a", "A", 5_000);
+        cache.put("b", "B", 5_000);
+        cache.get("a");
+        cache.put("c", "C", 5_000);
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    void zeroSizeStoresNothing() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(0, now::get);
+        cache.put("a", "A", 5_000);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void loadThatRacedAnInvalidationIsNotStored() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, now::get);
+        long stamp = cache.invalidationStamp("a");
+        cache.invalidate("a");
+
+        assertFalse(cache.putIfNotInvalidatedSince("a", "old", 5_000, stamp));
+        assertNull(cache.get("a"));
+        assertTrue(cache.putIfNotInvalidatedSince("a", "new", 5_000, cache.invalidationStamp("a")));
+        assertEquals("new", cache.get("a"));
+    }
+}
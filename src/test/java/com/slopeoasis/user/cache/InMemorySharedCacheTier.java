@@ -0,0 +1,62 @@
+package com.slopeoasis.user.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Local stand-in for the Redis tier: one instance shared by several caches plays the
+ * role of Redis for several replicas. Evictions are delivered synchronously to every
+ * listener (the evicting replica included, which is harmless).
+ */
+public class InMemorySharedCacheTier implements SharedCacheTier {
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String get(String key) {
+        Entry e = entries.get(key);
+        if (e == null || e.expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+        return e.value;
+    }
+
+    @Override
+    public Map<String, String> getAll(Collection<String> keys) {
+        Map<String, String> found = new HashMap<>();
+        for (String key : keys) {
+            String value = get(key);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public void evict(String key) {
+        entries.remove(key);
+        listeners.forEach(l -> l.accept(key));
+    }
+
+    @Override
+    public void onEvicted(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+    private record Entry(String value, long expiresAtMillis) { }
+}
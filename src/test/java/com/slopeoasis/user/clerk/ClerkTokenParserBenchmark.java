@@ -0,0 +1,97 @@
+package com.slopeoasis.user.clerk;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the previous split/readTree/Signature.getInstance verification path with
+ * ClerkTokenParser. Run with the GC profiler to see allocated bytes per operation:
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.args="ClerkTokenParserBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClerkTokenParserBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String token;
+    private PublicKey publicKey;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPair keys = TestTokens.rsaKeyPair();
+        token = TestTokens.sessionToken(keys, "user_2bench", 2_000_000_000L);
+        publicKey = keys.getPublic();
+    }
+
+    // The verification path as it was before ClerkTokenParser (minus the JWKS lookup)
+    @Benchmark
+    public String legacy() throws Exception {
+        String[] parts = token.split("\\.");
+        String headerJson = new String(Base64.getUrlDecoder().decode(parts[0]));
+        String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]));
+        JsonNode headerNode = objectMapper.readTree(headerJson);
+        JsonNode payloadNode = objectMapper.readTree(payloadJson);
+        if (!TestTokens.ISSUER.equals(payloadNode.path("iss").asText(null))
+                || headerNode.path("kid").asText(null) == null) {
+            throw new IllegalStateException();
+        }
+        String signedContent = parts[0] + "." + parts[1];
+        Signature sig = Signature.getInstance("SHA256withRSA");
+        sig.initVerify(publicKey);
+        sig.update(signedContent.getBytes());
+        if (!sig.verify(Base64.getUrlDecoder().decode(parts[2]))) {
+            throw new IllegalStateException();
+        }
+        return payloadNode.path("usid").asText(null);
+    }
+
+    @Benchmark
+    public String streaming() throws Exception {
+        ClerkTokenParser.ParsedToken parsed = ClerkTokenParser.parse(token.getBytes(StandardCharsets.US_ASCII));
+        if (!TestTokens.ISSUER.equals(parsed.iss) || parsed.kid == null) {
+            throw new IllegalStateException();
+        }
+        if (!ClerkTokenParser.verifySignature(parsed, publicKey)) {
+            throw new IllegalStateException();
+        }
+        return parsed.usid;
+    }
+
+    // Parsing only, to isolate allocation from the RSA math that dominates both paths
+    @Benchmark
+    public String legacyParseOnly() throws Exception {
+        String[] parts = token.split("\\.");
+        JsonNode headerNode = objectMapper.readTree(new String(Base64.getUrlDecoder().decode(parts[0])));
+        JsonNode payloadNode = objectMapper.readTree(new String(Base64.getUrlDecoder().decode(parts[1])));
+        return headerNode.path("kid").asText(null) + payloadNode.path("usid").asText(null);
+    }
+
+    @Benchmark
+    public String streamingParseOnly() throws Exception {
+        ClerkTokenParser.ParsedToken parsed = ClerkTokenParser.parse(token.getBytes(StandardCharsets.US_ASCII));
+        return parsed.kid + parsed.usid;
+    }
+}
@@ -0,0 +1,61 @@
+package com.slopeoasis.user.clerk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ClerkTokenParserTest {
+
+    private static KeyPair keys;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        keys = TestTokens.rsaKeyPair();
+    }
+
+    @Test
+    void extractsClaimsAndVerifiesSignature() throws Exception {
+        String token = TestTokens.sessionToken(keys, "user_123", 2_000_000_000L);
+
+        ClerkTokenParser.ParsedToken parsed = ClerkTokenParser.parse(bytes(token));
+
+        assertEquals(TestTokens.KID, parsed.kid);
+        assertEquals("RS256", parsed.alg);
+        assertEquals(TestTokens.ISSUER, parsed.iss);
+        assertEquals(2_000_000_000L, parsed.exp);
+        assertEquals("user_123", parsed.usid);
+        assertEquals("0xabc", parsed.wallet);
+        assertTrue(ClerkTokenParser.verifySignature(parsed, keys.getPublic()));
+    }
+
+    @Test
+    void rejectsTamperedPayload() throws Exception {
+        String token = TestTokens.sessionToken(keys, "user_123", 2_000_000_000L);
+        String other = TestTokens.sessionToken(keys, "user_999", 2_000_000_000L);
+        String[] a = token.split("\\.");
+        String[] b = other.split("\\.");
+        String forged = a[0] + "." + b[1] + "." + a[2];
+
+        ClerkTokenParser.ParsedToken parsed = ClerkTokenParser.parse(bytes(forged));
+
+        assertFalse(ClerkTokenParser.verifySignature(parsed, keys.getPublic()));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> ClerkTokenParser.parse(bytes("abc.def")));
+        assertThrows(IllegalArgumentException.class, () -> ClerkTokenParser.parse(bytes("a.b.c.d")));
+        assertThrows(IllegalArgumentException.class, () -> ClerkTokenParser.parse(bytes(".b.c")));
+    }
+
+    private static byte[] bytes(String token) {
+        return token.getBytes(StandardCharsets.US_ASCII);
+    }
+}
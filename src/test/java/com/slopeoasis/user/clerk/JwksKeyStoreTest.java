@@ -0,0 +1,77 @@
+package com.slopeoasis.user.clerk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.slopeoasis.user.http.OutboundHttpClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwksKeyStoreTest {
+
+    private final OutboundHttpClient outbound = mock(OutboundHttpClient.class);
+    private final JwksKeyStore store = new JwksKeyStore(outbound, new SimpleMeterRegistry());
+
+    @AfterEach
+    void stop() {
+        store.stop();
+    }
+
+    @Test
+    void requestDuringWarmUpJoinsTheWarmUpFetch() throws Exception {
+        KeyPair keys = TestTokens.rsaKeyPair();
+        HttpResponse<String> response = jwksResponse((RSAPublicKey) keys.getPublic());
+        when(outbound.get(eq("clerk-jwks"), any(), any())).thenAnswer(inv -> {
+            // slow enough that the lookup below finds nothing loaded yet
+            Thread.sleep(200);
+            return response;
+        });
+        ReflectionTestUtils.setField(store, "jwksUrl", "https://clerk.example/.well-known/jwks.json");
+        ReflectionTestUtils.setField(store, "refreshIntervalSeconds", 300L);
+        ReflectionTestUtils.setField(store, "minRefreshIntervalSeconds", 30L);
+        ReflectionTestUtils.setField(store, "maxRefreshIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(store, "warmupTimeoutMs", 5000L);
+
+        store.start();
+
+        assertEquals(keys.getPublic(), store.getKey(TestTokens.KID));
+        Thread.sleep(300);
+        verify(outbound, times(1)).get(eq("clerk-jwks"), any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<String> jwksResponse(RSAPublicKey key) {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String body = "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"" + TestTokens.KID + "\",\"n\":\""
+                + b64.encodeToString(unsigned(key.getModulus().toByteArray())) + "\",\"e\":\""
+                + b64.encodeToString(unsigned(key.getPublicExponent().toByteArray())) + "\"}]}";
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(200);
+        when(response.body()).thenReturn(body);
+        when(response.headers()).thenReturn(
+                HttpHeaders.of(Map.of("Cache-Control", List.of("max-age=3600")), (name, value) -> true));
+        return response;
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+}
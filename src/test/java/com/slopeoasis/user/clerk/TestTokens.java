@@ -0,0 +1,44 @@
+package com.slopeoasis.user.clerk;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Builds RS256-signed tokens shaped like Clerk session tokens for tests and benchmarks.
+ */
+final class TestTokens {
+    static final String ISSUER = "https://test.clerk.accounts.dev";
+    static final String KID = "ins_test";
+
+    private TestTokens() {
+    }
+
+    static KeyPair rsaKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+        gen.initialize(2048);
+        return gen.generateKeyPair();
+    }
+
+    static String sessionToken(KeyPair keys, String usid, long expEpochSeconds) throws GeneralSecurityException {
+        String header = "{\"alg\":\"RS256\",\"kid\":\"" + KID + "\",\"typ\":\"JWT\"}";
+        String payload = "{\"azp\":\"http://localhost:3000\",\"exp\":" + expEpochSeconds
+                + ",\"iat\":" + (expEpochSeconds - 60) + ",\"iss\":\"" + ISSUER + "\""
+                + ",\"nbf\":" + (expEpochSeconds - 70) + ",\"sid\":\"sess_test\",\"sub\":\"" + usid + "\""
+                + ",\"usid\":\"" + usid + "\",\"wallet\":\"0xabc\"}";
+        return sign(keys, header, payload);
+    }
+
+    static String sign(KeyPair keys, String headerJson, String payloadJson) throws GeneralSecurityException {
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = enc.encodeToString(headerJson.getBytes(StandardCharsets.UTF_8)) + "."
+                + enc.encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8));
+        Signature sig = Signature.getInstance("SHA256withRSA");
+        sig.initSign(keys.getPrivate());
+        sig.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + enc.encodeToString(sig.sign());
+    }
+}
@@ -0,0 +1,96 @@
+package com.slopeoasis.user.controller;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+import com.slopeoasis.user.service.UserServ;
+
+class UserContConditionalTest {
+
+    private static final UserSnapshot ALICE = new UserSnapshot(1, "user_alice", "alice", null, null, null, "", false, 3L);
+
+    private UserServ userServ;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        userServ = mock(UserServ.class);
+        mvc = MockMvcBuilders.standaloneSetup(new UserCont(userServ, 60)).build();
+    }
+
+    @Test
+    void publicProfileCarriesETagAndCacheControl() throws Exception {
+        when(userServ.getSnapshot("user_alice")).thenReturn(ALICE);
+
+        mvc.perform(get("/users/public/user_alice"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"user_alice-1-3\""))
+                .andExpect(header().string("Cache-Control", "max-age=60, public"))
+                .andExpect(jsonPath("$.nickname").value("alice"));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        when(userServ.getSnapshot("user_alice")).thenReturn(ALICE);
+
+        mvc.perform(get("/users/public/user_alice").header("If-None-Match", "\"user_alice-1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"user_alice-1-3\""));
+
+        mvc.perform(get("/users/public/user_alice").header("If-None-Match", "\"user_alice-1-2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void walletAddressOfUserWithoutWalletIsNotFound() throws Exception {
+        when(userServ.getSnapshot("user_alice")).thenReturn(ALICE);
+
+        mvc.perform(get("/users/public/pol-wallet-addres").param("clerkId", "user_alice"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void nicknameRevalidationSkipsLookupWhenUserIsCached() throws Exception {
+        when(userServ.getCachedSnapshot("user_alice")).thenReturn(ALICE);
+
+        mvc.perform(get("/users/public/by-nickname/Alice").header("If-None-Match", "\"user_alice-1-3\""))
+                .andExpect(status().isNotModified());
+
+        verify(userServ, never()).getClerkIdByNickname(anyString());
+    }
+
+    @Test
+    void writeReturnsNewETagAndFailedIfMatchIs412() throws Exception {
+        when(userServ.setNicknameByClerk("user_alice", "bob", new UserVersion(1, 3L))).thenReturn(new UserVersion(1, 4L));
+        when(userServ.setNicknameByClerk("user_alice", "bob", new UserVersion(1, 2L)))
+                .thenThrow(new OptimisticLockingFailureException("changed"));
+
+        mvc.perform(post("/users/nickname").requestAttr("X-User-Id", "user_alice")
+                        .header("If-Match", "\"user_alice-1-3\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"nickname\":\"bob\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"user_alice-1-4\""));
+
+        mvc.perform(post("/users/nickname").requestAttr("X-User-Id", "user_alice")
+                        .header("If-Match", "\"user_alice-1-2\"")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"nickname\":\"bob\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+}
@@ -0,0 +1,33 @@
+package com.slopeoasis.user.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class UserTagTest {
+
+    // codes are stored in theme1..theme3 and theme_mask (V7__theme_codes): they must never change
+    @Test
+    void codesAreStable() {
+        String[] stored = {"ART", "MUSIC", "VIDEO", "CODE", "TEMPLATE", "PHOTO", "MODEL_3D", "FONT", "OTHER"};
+        for (short code = 0; code < stored.length; code++) {
+            User.Tag tag = User.Tag.fromCode(code);
+            assertEquals(stored[code], tag.name());
+            assertEquals(code, tag.code());
+            assertEquals(1 << code, tag.bit());
+        }
+    }
+
+    @Test
+    void unknownNamesAndCodesAreNull() {
+        assertEquals(User.Tag.MODEL_3D, User.Tag.fromName("MODEL_3D"));
+        assertNull(User.Tag.fromName("model_3d"));
+        assertNull(User.Tag.fromName("null"));
+        assertNull(User.Tag.fromName(""));
+        assertNull(User.Tag.fromName(null));
+        assertNull(User.Tag.fromCode((short) 9));
+        assertNull(User.Tag.fromCode((short) -1));
+        assertNull(User.Tag.fromCode(null));
+    }
+}
@@ -0,0 +1,135 @@
+package com.slopeoasis.user.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs OutboundHttpClient against a local JDK HttpServer stub.
+ */
+class OutboundHttpClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch arrived = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", ex -> respond(ex, 200, "{\"keys\":[]}"));
+        server.createContext("/fail", ex -> respond(ex, 503, "down"));
+        server.createContext("/slow", ex -> {
+            arrived.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(ex, 200, "late");
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void returnsResponseAndRecordsLatency() throws Exception {
+        OutboundHttpClient client = client(Duration.ofSeconds(2), 5, 3);
+
+        var response = client.get("stub", uri("/ok"), Map.of("Authorization", "Bearer x"));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"keys\":[]}", response.body());
+        var stats = client.stats().get("stub");
+        assertEquals("CLOSED", stats.circuit());
+        assertEquals(1, stats.latency().count());
+        assertEquals(1L, stats.latency().buckets().get("le_inf"));
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndStopsCallingUpstream() throws Exception {
+        OutboundHttpClient client = client(Duration.ofSeconds(2), 5, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(503, client.get("stub", uri("/fail"), Map.of()).statusCode());
+        }
+        int before = hits.get();
+        assertThrows(RejectedExecutionException.class, () -> client.get("stub", uri("/ok"), Map.of()));
+
+        assertEquals(before, hits.get());
+        assertEquals("OPEN", client.stats().get("stub").circuit());
+    }
+
+    @Test
+    void timesOutSlowUpstream() {
+        OutboundHttpClient client = client(Duration.ofMillis(200), 5, 3);
+
+        assertThrows(HttpTimeoutException.class, () -> client.get("stub", uri("/slow"), Map.of()));
+        assertEquals(1, client.stats().get("stub").failures());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondMaxConcurrent() throws Exception {
+        OutboundHttpClient client = client(Duration.ofSeconds(5), 1, 3);
+        Thread blocked = new Thread(() -> {
+            try {
+                client.get("stub", uri("/slow"), Map.of());
+            } catch (Exception ignored) {
+                // released at the end of the test
+            }
+        });
+        blocked.start();
+        arrived.await(5, TimeUnit.SECONDS);
+
+        assertThrows(RejectedExecutionException.class, () -> client.get("stub", uri("/ok"), Map.of()));
+        assertEquals(1, client.stats().get("stub").rejected());
+
+        release.countDown();
+        blocked.join(5000);
+    }
+
+    private OutboundHttpClient client(Duration timeout, int maxConcurrent, int failureThreshold) {
+        OutboundHttpClient.UpstreamSettings settings =
+                new OutboundHttpClient.UpstreamSettings(timeout, maxConcurrent, failureThreshold, Duration.ofSeconds(30), 0);
+        return new OutboundHttpClient(Duration.ofSeconds(1), name -> settings, new SimpleMeterRegistry());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private void respond(HttpExchange ex, int status, String body) throws IOException {
+        hits.incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(status, bytes.length);
+        ex.getResponseBody().write(bytes);
+        ex.close();
+    }
+}
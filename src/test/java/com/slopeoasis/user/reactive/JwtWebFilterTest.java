@@ -0,0 +1,52 @@
+package com.slopeoasis.user.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+class JwtWebFilterTest {
+
+    // only paths that never reach the verifier are exercised here
+    private final JwtWebFilter filter = new JwtWebFilter(null);
+
+    @Test
+    void publicRoutesPassWithoutToken() {
+        AtomicBoolean passed = new AtomicBoolean();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/users/public/user_1"));
+
+        filter.filter(exchange, chain(passed)).block();
+
+        assertTrue(passed.get());
+        assertNull(exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void protectedRoutesRequireBearerToken() {
+        AtomicBoolean passed = new AtomicBoolean();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/users/nickname"));
+
+        filter.filter(exchange, chain(passed)).block();
+
+        assertEquals(false, passed.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+        assertEquals("{\"error\": \"Missing or invalid Authorization header\"}",
+                exchange.getResponse().getBodyAsString().block());
+    }
+
+    private static WebFilterChain chain(AtomicBoolean passed) {
+        return ex -> {
+            passed.set(true);
+            return Mono.empty();
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package com.slopeoasis.user.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.slopeoasis.user.entity.User;
+
+/**
+ * The read paths before and after the DTO projections of UserRepo, through Hibernate against
+ * an in-memory H2 stand-in for Postgres: a managed User loaded in a read-write transaction
+ * (entity, snapshot of its state, dirty check on commit) against the UserSnapshot constructor
+ * projection in a read-only session. One user by clerk id (GET /users/me) and a page of 50
+ * (the batch lookups). Query time here has no disk or network in it, so the difference is
+ * what Hibernate does per row; run with -prof gc for the bytes allocated per call.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.args="UserReadProjectionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class UserReadProjectionBenchmark {
+
+    private static final String SNAPSHOT = "select new com.slopeoasis.user.repository.UserSnapshot(u.id, u.clerkId,"
+            + " u.nickname, u.theme1, u.theme2, u.theme3, u.polygonWalletAddress, u.polygonWalletVerified, u.version)"
+            + " from User u";
+
+    @Param({"100000"})
+    public int users;
+
+    private Connection keepAlive;
+    private SessionFactory sessionFactory;
+    private List<String> page;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() throws SQLException {
+        String url = "jdbc:h2:mem:users_bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+        // the in-memory database lives as long as one connection to it is open
+        keepAlive = DriverManager.getConnection(url, "sa", "");
+        try (Statement ddl = keepAlive.createStatement()) {
+            // the columns after V7; theme_mask is generated in Postgres, a plain default here
+            ddl.execute("CREATE TABLE users ("
+                    + " id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                    + " clerk_id VARCHAR(255) NOT NULL UNIQUE,"
+                    + " nickname VARCHAR(255),"
+                    + " theme1 SMALLINT, theme2 SMALLINT, theme3 SMALLINT,"
+                    + " theme_mask SMALLINT DEFAULT 0 NOT NULL,"
+                    + " polygon_wallet_address VARCHAR(255),"
+                    + " polygon_wallet_verified BOOLEAN,"
+                    + " version BIGINT NOT NULL DEFAULT 0)");
+        }
+        try (PreparedStatement insert = keepAlive.prepareStatement("INSERT INTO users"
+                + " (clerk_id, nickname, theme1, theme2, polygon_wallet_address, polygon_wallet_verified)"
+                + " VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= users; i++) {
+                insert.setString(1, clerkId(i));
+                insert.setString(2, "Creator" + i);
+                insert.setShort(3, (short) (i % 7));
+                insert.setShort(4, (short) (i % 5 + 7));
+                insert.setString(5, i % 3 == 0 ? "0x" + Integer.toHexString(i) : "");
+                insert.setBoolean(6, i % 3 == 0);
+                insert.addBatch();
+                if (i % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .buildSessionFactory();
+
+        random = new SplittableRandom(42);
+        page = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            page.add(clerkId(random.nextInt(1, users + 1)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        sessionFactory.close();
+        keepAlive.close();
+    }
+
+    private static String clerkId(int i) {
+        return "user_" + Integer.toHexString(i * 0x9E3779B1);
+    }
+
+    // what the query costs H2 on its own, without Hibernate
+    @Benchmark
+    public String jdbcByClerkId() throws SQLException {
+        try (PreparedStatement select = keepAlive.prepareStatement("SELECT nickname FROM users WHERE clerk_id = ?")) {
+            select.setString(1, clerkId(random.nextInt(1, users + 1)));
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public User entityByClerkId() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            User user = session.createQuery("from User u where u.clerkId = :clerkId", User.class)
+                    .setParameter("clerkId", clerkId(random.nextInt(1, users + 1)))
+                    .getSingleResult();
+            tx.commit();
+            return user;
+        }
+    }
+
+    @Benchmark
+    public UserSnapshot snapshotByClerkId() {
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            Transaction tx = session.beginTransaction();
+            UserSnapshot user = session.createQuery(SNAPSHOT + " where u.clerkId = :clerkId", UserSnapshot.class)
+                    .setParameter("clerkId", clerkId(random.nextInt(1, users + 1)))
+                    .getSingleResult();
+            tx.commit();
+            return user;
+        }
+    }
+
+    @Benchmark
+    public List<User> entitiesByClerkIdIn() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            List<User> found = session.createQuery("from User u where u.clerkId in :clerkIds", User.class)
+                    .setParameter("clerkIds", page)
+                    .getResultList();
+            tx.commit();
+            return found;
+        }
+    }
+
+    @Benchmark
+    public List<UserSnapshot> snapshotsByClerkIdIn() {
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            Transaction tx = session.beginTransaction();
+            List<UserSnapshot> found = session.createQuery(SNAPSHOT + " where u.clerkId in :clerkIds", UserSnapshot.class)
+                    .setParameter("clerkIds", page)
+                    .getResultList();
+            tx.commit();
+            return found;
+        }
+    }
+}
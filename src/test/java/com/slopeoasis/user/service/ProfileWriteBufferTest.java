@@ -0,0 +1,214 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProfileWriteBufferTest {
+
+    private static final UserSnapshot ALICE = new UserSnapshot(1, "user_alice", "alice", null, null, null, "", false, 3L);
+    private static final UserSnapshot BOB = new UserSnapshot(2, "user_bob", "bob", null, null, null, "", false, 7L);
+
+    private JdbcTemplate jdbcTemplate;
+    private ProfileWriteBuffer buffer;
+    private final List<ProfileWriteBuffer.Pending> flushed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        // every row still at its base version unless a test says otherwise
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class), any(int[].class)))
+                .thenAnswer(call -> applied(call.getArgument(1)));
+        // an hour between flushes: the tests flush by hand
+        buffer = new ProfileWriteBuffer(jdbcTemplate, mock(PlatformTransactionManager.class),
+                true, "buffered", 3_600_000, 500, 10_000, 3, new SimpleMeterRegistry());
+        buffer.onFlushed(flushed::addAll);
+        buffer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.stop();
+    }
+
+    private static int[] applied(List<Object[]> batch) {
+        int[] counts = new int[batch.size()];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    @Test
+    void editsOfOneUserCoalesceIntoOneRow() {
+        assertEquals(4, buffer.bufferNickname(ALICE, "alice2", null));
+        assertEquals(5, buffer.bufferThemes(ALICE, User.Tag.CODE, null, User.Tag.ART, null));
+
+        UserSnapshot seen = buffer.pending("user_alice").applyTo(ALICE);
+        assertEquals("alice2", seen.nickname());
+        assertEquals(User.Tag.CODE, seen.theme1());
+        assertEquals(5L, seen.version());
+
+        buffer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), any(int[].class));
+        assertEquals(1, rows.getValue().size());
+        assertArrayEquals(new Object[] {"alice2", true, (short) 3, true, null, true, (short) 0, 5L, 1, 3L},
+                rows.getValue().get(0));
+        assertEquals(1, flushed.size());
+        assertNull(buffer.pending("user_alice"));
+    }
+
+    @Test
+    void ifMatchIsCheckedAgainstTheBufferedVersion() {
+        buffer.bufferThemes(ALICE, User.Tag.CODE, null, null, new UserVersion(1, 3L));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> buffer.bufferNickname(ALICE, "alice2", new UserVersion(1, 3L)));
+        // the right version of another row (the user was re-created) does not match either
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> buffer.bufferNickname(ALICE, "alice2", new UserVersion(2, 4L)));
+        assertEquals(5, buffer.bufferNickname(ALICE, "alice2", new UserVersion(1, 4L)));
+    }
+
+    @Test
+    void takenNicknameIsDroppedAndTheRestIsWritten() {
+        when(jdbcTemplate.batchUpdate(anyString(),
+                argThat((List<Object[]> batch) -> batch.stream().anyMatch(row -> "taken".equals(row[0]))),
+                any(int[].class)))
+                .thenThrow(new DuplicateKeyException("users_nickname_lower_idx"));
+        buffer.bufferNickname(ALICE, "taken", null);
+        buffer.bufferThemes(ALICE, User.Tag.MUSIC, null, null, null);
+        buffer.bufferThemes(BOB, User.Tag.FONT, null, null, null);
+
+        buffer.flush();
+
+        // Bob, then Alice's themes without the nickname
+        assertEquals(2, flushed.size());
+        ProfileWriteBuffer.Pending alice = flushed.stream().filter(p -> p.clerkId().equals("user_alice")).findFirst().orElseThrow();
+        assertNull(alice.nickname());
+        assertEquals(User.Tag.MUSIC, alice.theme1());
+        assertNull(buffer.pending("user_alice"));
+        assertNull(buffer.pending("user_bob"));
+        assertThrows(Exception.class, () -> alice.written().join());
+    }
+
+    @Test
+    void editsCoalescedDuringAFlushGetTheVersionHandedOut() {
+        buffer.bufferNickname(ALICE, "alice2", null);
+        List<Object[]> written = new ArrayList<>();
+        // two more edits arrive while the first one is being written
+        doAnswer(call -> {
+            List<Object[]> batch = call.getArgument(1);
+            written.addAll(batch);
+            if (written.size() == 1) {
+                buffer.bufferThemes(ALICE, User.Tag.CODE, null, null, null);
+                buffer.bufferNickname(ALICE, "alice3", null);
+            }
+            return applied(batch);
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(List.class), any(int[].class));
+
+        buffer.flush();
+        ProfileWriteBuffer.Pending next = buffer.pending("user_alice");
+        assertEquals(4L, next.baseVersion());
+        assertEquals(6L, next.version());
+
+        buffer.flush();
+        // base 3 -> 4, then 4 -> 6: the row ends at the version of the last ETag handed out
+        assertEquals(3L, written.get(0)[9]);
+        assertEquals(4L, written.get(0)[7]);
+        assertEquals(4L, written.get(1)[9]);
+        assertEquals(6L, written.get(1)[7]);
+        assertNull(buffer.pending("user_alice"));
+    }
+
+    @Test
+    void failingRowDoesNotHoldBackItsBatchAndIsDroppedEventually() {
+        when(jdbcTemplate.batchUpdate(anyString(),
+                argThat((List<Object[]> batch) -> batch.stream().anyMatch(row -> Integer.valueOf(1).equals(row[8]))),
+                any(int[].class)))
+                .thenThrow(new InvalidDataAccessApiUsageException("bad row"));
+        buffer.bufferThemes(ALICE, User.Tag.MUSIC, null, null, null);
+        buffer.bufferThemes(BOB, User.Tag.FONT, null, null, null);
+
+        buffer.flush();
+        assertNull(buffer.pending("user_bob"));
+        assertEquals(1, buffer.pending("user_alice").failures());
+
+        buffer.flush();
+        buffer.flush();
+        // max-attempts is 3
+        assertNull(buffer.pending("user_alice"));
+        verify(jdbcTemplate, times(4)).batchUpdate(anyString(),
+                argThat((List<Object[]> batch) -> batch.stream().anyMatch(row -> Integer.valueOf(1).equals(row[8]))),
+                any(int[].class));
+    }
+
+    @Test
+    void rowWrittenElsewhereIsRebasedNotOverwrittenAtTheSameVersion() {
+        List<Object[]> written = new ArrayList<>();
+        doAnswer(call -> {
+            List<Object[]> batch = call.getArgument(1);
+            written.addAll(batch);
+            // another replica moved the row from 3 to 4 before the first attempt
+            return written.size() == 1 ? new int[] {0} : applied(batch);
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(List.class), any(int[].class));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1))).thenReturn(List.of(4L));
+        assertEquals(4, buffer.bufferNickname(ALICE, "alice2", null));
+
+        buffer.flush();
+
+        // based on 4 now, and past the 4 the client was handed
+        assertEquals(2, written.size());
+        assertEquals(4L, written.get(1)[9]);
+        assertEquals(5L, written.get(1)[7]);
+        assertNull(buffer.pending("user_alice"));
+        assertEquals(1, flushed.size());
+    }
+
+    @Test
+    void bufferedNicknamesAreFoundIgnoringCaseUntilWritten() {
+        buffer.bufferNickname(ALICE, "Alice2", null);
+        buffer.bufferNickname(BOB, "bob2", null);
+        assertEquals("user_alice", buffer.clerkIdWithNickname("ALICE2"));
+
+        buffer.bufferNickname(ALICE, "alice3", null);
+        assertNull(buffer.clerkIdWithNickname("alice2"));
+        assertEquals("user_alice", buffer.clerkIdWithNickname("Alice3"));
+
+        buffer.discard("user_bob");
+        assertNull(buffer.clerkIdWithNickname("bob2"));
+        buffer.flush();
+        assertNull(buffer.clerkIdWithNickname("alice3"));
+    }
+}
@@ -0,0 +1,33 @@
+package com.slopeoasis.user.service;
+
+import static org.mockito.Mockito.mock;
+
+import com.slopeoasis.user.cache.NoSharedCacheTier;
+import com.slopeoasis.user.cache.SharedCacheTier;
+import com.slopeoasis.user.repository.UserRepo;
+import com.slopeoasis.user.web3j.WalletChallengeStore;
+import com.slopeoasis.user.web3j.WalletVerificationService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// UserServ over a (mocked) repository, everything else mocked or off
+final class TestUserServs {
+    static final int CACHE_MAX_SIZE = 100;
+    static final long CACHE_TTL_SECONDS = 60;
+    static final long NEGATIVE_CACHE_TTL_SECONDS = 10;
+    static final int MAX_WRITE_RETRIES = 2;
+
+    private TestUserServs() {
+    }
+
+    static UserServ userServ(UserRepo userRepo) {
+        return userServ(userRepo, new NoSharedCacheTier());
+    }
+
+    static UserServ userServ(UserRepo userRepo, SharedCacheTier sharedCacheTier) {
+        return new UserServ(userRepo, mock(WalletVerificationService.class), mock(WalletChallengeStore.class),
+                sharedCacheTier, mock(ThemeIndex.class), mock(ProfileWriteBuffer.class),
+                CACHE_MAX_SIZE, CACHE_TTL_SECONDS, NEGATIVE_CACHE_TTL_SECONDS, MAX_WRITE_RETRIES,
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,53 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.slopeoasis.user.entity.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ThemeIndexTest {
+
+    private ThemeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ThemeIndex(new JdbcTemplate(mock(DataSource.class)), mock(PlatformTransactionManager.class),
+                100, 300, new SimpleMeterRegistry());
+        index.update(1, User.Tag.CODE, User.Tag.MUSIC, null);
+        index.update(2, User.Tag.CODE, null, null);
+        index.update(3, User.Tag.MUSIC, User.Tag.ART, User.Tag.CODE);
+        index.update(4, User.Tag.ART, null, null);
+    }
+
+    @Test
+    void andOrQueries() {
+        assertArrayEquals(new int[] {1, 3}, index.query(List.of(User.Tag.CODE, User.Tag.MUSIC), true, 0, 10));
+        assertArrayEquals(new int[] {1, 2, 3}, index.query(List.of(User.Tag.CODE, User.Tag.MUSIC), false, 0, 10));
+        assertArrayEquals(new int[0], index.query(List.of(User.Tag.FONT), false, 0, 10));
+    }
+
+    @Test
+    void pagesContinueAfterTheCursorId() {
+        assertArrayEquals(new int[] {2, 3}, index.query(List.of(User.Tag.CODE, User.Tag.ART), false, 1, 2));
+    }
+
+    @Test
+    void updateReplacesThemesAndRemoveDropsTheUser() {
+        index.update(1, User.Tag.ART, null, null);
+        index.remove(3);
+
+        assertArrayEquals(new int[] {2}, index.query(List.of(User.Tag.CODE), true, 0, 10));
+        assertArrayEquals(new int[] {1, 4}, index.query(List.of(User.Tag.ART), true, 0, 10));
+    }
+}
@@ -0,0 +1,98 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.slopeoasis.user.entity.User;
+
+class UserBulkServTest {
+
+    @Test
+    void csvRoundTripsQuotesCommasAndLineBreaks() throws IOException {
+        StringWriter out = new StringWriter();
+        Csv.writeRow(out, "user_a", "a, \"b\"\nc", null, "");
+
+        StringReader in = new StringReader(out.toString());
+        assertEquals(List.of("user_a", "a, \"b\"\nc", "", ""), Csv.readRow(in));
+        assertNull(Csv.readRow(in));
+    }
+
+    @Test
+    void csvColumnsAreMatchedByHeader() throws IOException {
+        UserBulkServ.RowSource rows = UserBulkServ.csvRows(new StringReader(
+                "nickname,clerk_id,extra,polygon_wallet_verified\r\nalice,user_a,x,true\r\n\r\n"));
+
+        UserBulkServ.UserRow row = rows.next();
+        assertEquals("user_a", row.clerkId());
+        assertEquals("alice", row.nickname());
+        assertEquals(Boolean.TRUE, row.polygonWalletVerified());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void ndjsonIsReadOneRecordAtATime() throws IOException {
+        UserBulkServ.RowSource rows = UserBulkServ.ndjsonRows(new StringReader(
+                "{\"clerkId\":\"user_a\",\"theme1\":\"ART\",\"id\":7}\n{\"clerkId\":\"user_b\"}\n"));
+
+        assertEquals("ART", rows.next().theme1());
+        assertEquals("user_b", rows.next().clerkId());
+        assertNull(rows.next());
+    }
+
+    @Test
+    void recordsAreValidatedAndNormalized() {
+        String wallet = "0x52908400098527886E0F7030069857D2E4169EE7";
+        Object[] params = UserBulkServ.upsertParams(
+                new UserBulkServ.UserRow("user_a", null, "art", null, "", wallet, true, 9L), 1);
+
+        assertArrayEquals(new Object[] {"user_a", "", User.Tag.ART.code(), null, null, wallet.toLowerCase(), true}, params);
+        assertThrows(IllegalArgumentException.class, () -> UserBulkServ.upsertParams(
+                new UserBulkServ.UserRow("user_a", null, "NOPE", null, null, null, null, null), 2));
+        assertThrows(IllegalArgumentException.class, () -> UserBulkServ.upsertParams(
+                new UserBulkServ.UserRow(" ", null, null, null, null, null, null, null), 3));
+    }
+
+    @Test
+    void importInvalidatesTheWalletsItReplaces() throws IOException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+        String previous = "0x52908400098527886e0f7030069857d2e4169ee7";
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of(previous));
+        UserServ userServ = mock(UserServ.class);
+        List<List<String>> invalidated = new ArrayList<>();
+        // the lists are reused for the next batch, keep what they held
+        doAnswer(call -> invalidated.add(List.copyOf(call.<Collection<String>>getArgument(1))))
+                .when(userServ).invalidateCached(any(), any());
+        UserBulkServ bulk = new UserBulkServ(jdbcTemplate, mock(PlatformTransactionManager.class), userServ,
+                mock(ThemeIndex.class), 100, 100);
+
+        // user_a clears its wallet
+        bulk.importUsers(UserBulkServ.Format.CSV, new ByteArrayInputStream(
+                "clerk_id,polygon_wallet_address\nuser_a,\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of(List.of(previous)), invalidated);
+    }
+}
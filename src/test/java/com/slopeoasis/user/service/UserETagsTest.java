@@ -0,0 +1,51 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+
+class UserETagsTest {
+
+    @Test
+    void etagIsClerkIdRowIdAndVersion() {
+        UserSnapshot u = new UserSnapshot(12, "user_2abc", "alice", null, null, null, "", false, 7L);
+
+        assertEquals("\"user_2abc-12-7\"", UserETags.of(u));
+    }
+
+    @Test
+    void readsClerkIdBackFromIfNoneMatch() {
+        assertEquals("user_2abc", UserETags.clerkIdOf("\"user_2abc-12-7\""));
+        assertEquals("user_2abc", UserETags.clerkIdOf("W/\"user_2abc-12-7\""));
+        assertEquals("user_2abc", UserETags.clerkIdOf(" \"user_2abc-12-7\", \"user_2abc-12-6\""));
+        assertEquals("user-with-dash", UserETags.clerkIdOf("\"user-with-dash-3-12\""));
+    }
+
+    @Test
+    void ignoresForeignTags() {
+        assertNull(UserETags.clerkIdOf(null));
+        assertNull(UserETags.clerkIdOf("*"));
+        assertNull(UserETags.clerkIdOf("\"abc\""));
+        assertNull(UserETags.clerkIdOf("\"user_2abc-7\""));
+        assertNull(UserETags.clerkIdOf("\"user_2abc--7\""));
+        assertNull(UserETags.clerkIdOf("\"user_2abc-12-\""));
+        assertNull(UserETags.clerkIdOf("\"user_2abc-x1-7\""));
+        assertNull(UserETags.clerkIdOf("user_2abc-12-7"));
+    }
+
+    @Test
+    void ifMatchYieldsExpectedRowAndVersion() {
+        assertNull(UserETags.expected(null, "user_2abc"));
+        assertNull(UserETags.expected("*", "user_2abc"));
+        assertEquals(new UserVersion(12, 7L), UserETags.expected("\"user_2abc-12-7\"", "user_2abc"));
+        // another user's tag, weak tags, pre-id tags and garbage can never match
+        assertEquals(UserETags.NEVER, UserETags.expected("\"user_other-12-7\"", "user_2abc"));
+        assertEquals(UserETags.NEVER, UserETags.expected("W/\"user_2abc-12-7\"", "user_2abc"));
+        assertEquals(UserETags.NEVER, UserETags.expected("\"user_2abc-7\"", "user_2abc"));
+        assertEquals(UserETags.NEVER, UserETags.expected("nonsense", "user_2abc"));
+    }
+}
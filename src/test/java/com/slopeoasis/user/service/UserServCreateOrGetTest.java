@@ -0,0 +1,61 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.slopeoasis.user.repository.UserRepo;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserUpsertRow;
+
+class UserServCreateOrGetTest {
+
+    private static final UserSnapshot ALICE = new UserSnapshot(1, "user_a", "alice", null, null, null, "", false, 4L);
+
+    private UserRepo userRepo;
+    private UserServ userServ;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepo.class);
+        userServ = TestUserServs.userServ(userRepo);
+    }
+
+    @Test
+    void returningUserIsReadNotUpserted() {
+        when(userRepo.findSnapshotByClerkId("user_a")).thenReturn(Optional.of(ALICE));
+
+        UserCreationResult first = userServ.createOrGetByClerkId("user_a", null);
+        UserCreationResult second = userServ.createOrGetByClerkId("user_a", null);
+
+        assertEquals(ALICE, first.getUser());
+        assertFalse(second.isCreated());
+        // the second login is a cache hit
+        verify(userRepo, times(1)).findSnapshotByClerkId("user_a");
+        verify(userRepo, never()).insertOrGet(anyString());
+    }
+
+    @Test
+    void missingUserIsUpsertedAndCached() {
+        UserUpsertRow row = mock(UserUpsertRow.class);
+        when(row.toSnapshot()).thenReturn(new UserSnapshot(7, "user_new", "", null, null, null, "", false, 0L));
+        when(row.getCreated()).thenReturn(true);
+        when(userRepo.findSnapshotByClerkId("user_new")).thenReturn(Optional.empty());
+        when(userRepo.insertOrGet("user_new")).thenReturn(Optional.of(row));
+
+        assertTrue(userServ.createOrGetByClerkId("user_new", null).isCreated());
+        // the negative entry from the lookup was replaced
+        assertEquals(7, userServ.getCachedSnapshot("user_new").id());
+    }
+}
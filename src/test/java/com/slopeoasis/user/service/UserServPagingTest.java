@@ -0,0 +1,69 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.slopeoasis.user.repository.UserListRow;
+import com.slopeoasis.user.repository.UserRepo;
+
+class UserServPagingTest {
+
+    private UserRepo userRepo;
+    private UserServ userServ;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepo.class);
+        userServ = TestUserServs.userServ(userRepo);
+    }
+
+    private record Row(Integer getId, String getClerkId, String getNickname, String getPolygonWalletAddress,
+                       String getNicknameKey) implements UserListRow { }
+
+    private static UserListRow row(int id, String nickname) {
+        return new Row(id, "user_" + id, nickname, "", nickname.toLowerCase());
+    }
+
+    @Test
+    void listingContinuesAfterTheLastIdOfThePage() {
+        when(userRepo.findPageAfterId(0, 3)).thenReturn(List.of(row(1, "a"), row(2, "b"), row(5, "c")));
+        when(userRepo.findPageAfterId(2, 3)).thenReturn(List.of(row(5, "c")));
+
+        UserServ.UserPage first = userServ.listUsers(null, 2);
+        assertEquals(List.of("user_1", "user_2"), first.items().stream().map(UserServ.ListedUser::clerkId).toList());
+
+        UserServ.UserPage last = userServ.listUsers(first.nextCursor(), 2);
+        assertEquals("user_5", last.items().get(0).clerkId());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void prefixSearchScansTheRangeOfThePrefix() {
+        when(userRepo.findNicknamePrefixPage("ali", "alj", "", 2)).thenReturn(List.of(row(7, "Alice"), row(3, "Alina")));
+        when(userRepo.findNicknamePrefixPage("ali", "alj", "alice", 2)).thenReturn(List.of(row(3, "Alina")));
+
+        UserServ.UserPage first = userServ.searchByNicknamePrefix("Ali", null, 1);
+        assertEquals("Alice", first.items().get(0).nickname());
+
+        UserServ.UserPage second = userServ.searchByNicknamePrefix("Ali", first.nextCursor(), 1);
+        assertEquals("Alina", second.items().get(0).nickname());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void cursorsAreBoundToTheirListing() {
+        String idCursor = PageCursors.ofId(42);
+        assertEquals(42, PageCursors.idAfter(idCursor));
+        assertThrows(IllegalArgumentException.class, () -> PageCursors.nicknameKeyAfter(idCursor));
+        assertThrows(IllegalArgumentException.class, () -> PageCursors.idAfter("not*base64"));
+        assertThrows(IllegalArgumentException.class, () -> userServ.listUsers(null, UserServ.MAX_PAGE_SIZE + 1));
+    }
+}
@@ -0,0 +1,110 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.slopeoasis.user.cache.InMemorySharedCacheTier;
+import com.slopeoasis.user.entity.User;
+import com.slopeoasis.user.repository.UserRepo;
+import com.slopeoasis.user.repository.UserSnapshot;
+import com.slopeoasis.user.repository.UserVersion;
+
+// Two replicas sharing one L2 (and one database)
+class UserServSharedCacheTest {
+
+    private static final UserSnapshot ALICE =
+            new UserSnapshot(1, "user_a", "alice", User.Tag.ART, null, null, "", false, 4L);
+
+    private UserRepo userRepo;
+    private InMemorySharedCacheTier l2;
+    private UserServ replicaA;
+    private UserServ replicaB;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepo.class);
+        l2 = new InMemorySharedCacheTier();
+        replicaA = replica();
+        replicaB = replica();
+    }
+
+    private UserServ replica() {
+        return TestUserServs.userServ(userRepo, l2);
+    }
+
+    @Test
+    void secondReplicaIsServedFromL2() {
+        when(userRepo.findSnapshotByClerkId("user_a")).thenReturn(Optional.of(ALICE));
+
+        assertEquals("alice", replicaA.getNicknameByClerk("user_a"));
+        assertEquals(ALICE, replicaB.getSnapshot("user_a"));
+        assertEquals("ART", replicaB.getThemesByClerk("user_a")[0]);
+
+        verify(userRepo, times(1)).findSnapshotByClerkId("user_a");
+    }
+
+    @Test
+    void negativeEntriesAreSharedToo() {
+        when(userRepo.findSnapshotByClerkId("user_x")).thenReturn(Optional.empty());
+
+        assertNull(replicaA.getSnapshot("user_x"));
+        assertNull(replicaB.getSnapshot("user_x"));
+
+        verify(userRepo, times(1)).findSnapshotByClerkId("user_x");
+    }
+
+    @Test
+    void writeOnOneReplicaInvalidatesTheOthers() {
+        UserSnapshot renamed = new UserSnapshot(1, "user_a", "bob", User.Tag.ART, null, null, "", false, 5L);
+        when(userRepo.findSnapshotByClerkId("user_a")).thenReturn(Optional.of(ALICE), Optional.of(renamed));
+        when(userRepo.updateNicknameById(1, 4L, "bob")).thenReturn(1);
+
+        assertEquals("alice", replicaA.getNicknameByClerk("user_a"));
+        assertEquals("alice", replicaB.getNicknameByClerk("user_a"));
+
+        assertEquals(new UserVersion(1, 5L), replicaA.setNicknameByClerk("user_a", "bob", null));
+
+        assertFalse(l2.contains("users:user_a"));
+        assertNull(replicaB.getCachedSnapshot("user_a"));
+        assertEquals("bob", replicaB.getNicknameByClerk("user_a"));
+    }
+
+    @Test
+    void readThatStartedBeforeAWriteDoesNotCacheTheOldRow() throws Exception {
+        UserSnapshot renamed = new UserSnapshot(1, "user_a", "bob", User.Tag.ART, null, null, "", false, 5L);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        // the first read sees the row before the rename and returns only after it committed
+        when(userRepo.findSnapshotByClerkId("user_a")).thenAnswer(call -> {
+            reading.countDown();
+            written.await();
+            return Optional.of(ALICE);
+        }).thenReturn(Optional.of(renamed));
+        when(userRepo.findVersionByClerkId("user_a")).thenReturn(Optional.of(new UserVersion(1, 4L)));
+        when(userRepo.updateNicknameById(1, 4L, "bob")).thenReturn(1);
+
+        CompletableFuture<UserSnapshot> read = CompletableFuture.supplyAsync(() -> replicaA.getSnapshot("user_a"));
+        reading.await();
+        // on the other replica, so the invalidation reaches A through the shared tier
+        replicaB.setNicknameByClerk("user_a", "bob", null);
+        written.countDown();
+
+        assertEquals("alice", read.get(5, TimeUnit.SECONDS).nickname());
+        assertNull(replicaA.getCachedSnapshot("user_a"));
+        assertFalse(l2.contains("users:user_a"));
+        assertEquals("bob", replicaA.getNicknameByClerk("user_a"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.slopeoasis.user.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.slopeoasis.user.repository.UserRepo;
+import com.slopeoasis.user.repository.UserVersion;
+
+class UserServVersioningTest {
+
+    private UserRepo userRepo;
+    private UserServ userServ;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepo.class);
+        userServ = TestUserServs.userServ(userRepo);
+    }
+
+    @Test
+    void updatesAgainstCurrentVersionAndReturnsTheNextOne() {
+        when(userRepo.findVersionByClerkId("user_a")).thenReturn(Optional.of(new UserVersion(1, 4L)));
+        when(userRepo.updateNicknameById(1, 4L, "alice")).thenReturn(1);
+
+        assertEquals(new UserVersion(1, 5L), userServ.setNicknameByClerk("user_a", "alice", null));
+    }
+
+    @Test
+    void retriesWithFreshVersionWhenRowChangedMeanwhile() {
+        when(userRepo.findVersionByClerkId("user_a")).thenReturn(Optional.of(new UserVersion(1, 4L)), Optional.of(new UserVersion(1, 6L)));
+        when(userRepo.updateNicknameById(1, 4L, "alice")).thenReturn(0);
+        when(userRepo.updateNicknameById(1, 6L, "alice")).thenReturn(1);
+
+        assertEquals(new UserVersion(1, 7L), userServ.setNicknameByClerk("user_a", "alice", null));
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        when(userRepo.findVersionByClerkId("user_a")).thenReturn(Optional.of(new UserVersion(1, 4L)));
+        when(userRepo.updateNicknameById(eq(1), anyLong(), eq("alice"))).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> userServ.setNicknameByClerk("user_a", "alice", null));
+        // first attempt plus the retries
+        verify(userRepo, times(1 + TestUserServs.MAX_WRITE_RETRIES)).updateNicknameById(1, 4L, "alice");
+    }
+
+    @Test
+    void ifMatchMismatchIsNotRetried() {
+        when(userRepo.updateNicknameById(1, 3L, "alice")).thenReturn(0);
+        when(userRepo.findVersionByClerkId("user_a")).thenReturn(Optional.of(new UserVersion(1, 4L)));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> userServ.setNicknameByClerk("user_a", "alice", new UserVersion(1, 3L)));
+        verify(userRepo, times(1)).updateNicknameById(eq(1), anyLong(), eq("alice"));
+    }
+
+    @Test
+    void missingUserIsNullNotConflict() {
+        when(userRepo.findVersionByClerkId("user_x")).thenReturn(Optional.empty());
+
+        assertNull(userServ.setNicknameByClerk("user_x", "x", null));
+        verify(userRepo, never()).updateNicknameById(anyInt(), anyLong(), eq("x"));
+        // with If-Match the update runs, finds no row, and the version lookup tells it's gone
+        assertNull(userServ.setNicknameByClerk("user_x", "x", new UserVersion(9, 2L)));
+    }
+
+    @Test
+    void ifMatchOfADeletedRowDoesNotApplyToItsSuccessor() {
+        // user_a was deleted and signed up again: same clerkId and version, new row id
+        when(userRepo.updateNicknameById(1, 0L, "alice")).thenReturn(0);
+        when(userRepo.findVersionByClerkId("user_a")).thenReturn(Optional.of(new UserVersion(2, 0L)));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> userServ.setNicknameByClerk("user_a", "alice", new UserVersion(1, 0L)));
+        verify(userRepo, never()).updateNicknameById(eq(2), anyLong(), eq("alice"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.slopeoasis.user.web3j;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class InMemoryWalletChallengeStoreTest {
+
+    private static final String ADDRESS = "0x" + "ab".repeat(20);
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final InMemoryWalletChallengeStore store = new InMemoryWalletChallengeStore(60, 1000, 3, now::get);
+
+    @Test
+    void challengeCanBeConsumedOnlyOnce() {
+        WalletChallenge challenge = store.issue("user_1", ADDRESS);
+        assertTrue(challenge.message().contains(challenge.nonce()));
+
+        assertNotNull(store.consume(challenge.nonce()));
+        assertNull(store.consume(challenge.nonce()));
+        assertEquals(new WalletChallengeStore.ChallengeStats(0, 1, 1, 0), store.stats());
+    }
+
+    @Test
+    void timeWheelExpiresOutstandingChallenges() {
+        WalletChallenge first = store.issue("user_1", ADDRESS);
+        now.addAndGet(30_000);
+        store.issue("user_2", ADDRESS);
+
+        now.addAndGet(30_500);
+        store.expireDue();
+        assertEquals(1, store.stats().outstanding());
+        assertNull(store.consume(first.nonce()));
+
+        now.addAndGet(30_000);
+        store.expireDue();
+        assertEquals(new WalletChallengeStore.ChallengeStats(0, 2, 0, 2), store.stats());
+    }
+
+    @Test
+    void expiredChallengeIsRejectedBeforeItsSlotIsDrained() {
+        WalletChallenge challenge = store.issue("user_1", ADDRESS);
+        now.addAndGet(61_000);
+
+        assertNull(store.consume(challenge.nonce()));
+        assertEquals(1, store.stats().expired());
+    }
+
+    @Test
+    void rejectsWhenTooManyAreOutstanding() {
+        InMemoryWalletChallengeStore small = new InMemoryWalletChallengeStore(60, 1, 3, now::get);
+        small.issue("user_1", ADDRESS);
+        assertThrows(RejectedExecutionException.class, () -> small.issue("user_2", ADDRESS));
+    }
+
+    @Test
+    void newChallengeReplacesTheUsersOldestBeyondMaxPerUser() {
+        WalletChallenge oldest = store.issue("user_1", ADDRESS);
+        WalletChallenge second = store.issue("user_1", ADDRESS);
+        store.issue("user_1", ADDRESS);
+        store.issue("user_1", ADDRESS);
+        store.issue("user_2", ADDRESS);
+
+        assertEquals(4, store.stats().outstanding());
+        assertNull(store.consume(oldest.nonce()));
+        assertNotNull(store.consume(second.nonce()));
+    }
+}
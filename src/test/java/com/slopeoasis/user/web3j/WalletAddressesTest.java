@@ -0,0 +1,38 @@
+package com.slopeoasis.user.web3j;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class WalletAddressesTest {
+
+    private static final String ADDRESS = "0x52908400098527886E0F7030069857D2E4169EE7";
+
+    @Test
+    void acceptsAsciiHexInEitherCase() {
+        assertTrue(WalletAddresses.isValid(ADDRESS));
+        assertEquals(ADDRESS.toLowerCase(), WalletAddresses.normalize("  " + ADDRESS + " "));
+    }
+
+    @Test
+    void rejectsNonAsciiDigits() {
+        // fullwidth one and Arabic-Indic one, both digits to Character.digit
+        String fullwidth = ADDRESS.substring(0, 41) + "\uFF11";
+        String arabicIndic = ADDRESS.substring(0, 41) + "\u0661";
+
+        assertFalse(WalletAddresses.isValid(fullwidth));
+        assertFalse(WalletAddresses.isValid(arabicIndic));
+        assertThrows(IllegalArgumentException.class, () -> WalletAddresses.normalize(fullwidth));
+    }
+
+    @Test
+    void rejectsWrongLengthOrPrefix() {
+        assertFalse(WalletAddresses.isValid(null));
+        assertFalse(WalletAddresses.isValid(ADDRESS.substring(0, 41)));
+        assertFalse(WalletAddresses.isValid("1x" + ADDRESS.substring(2)));
+        assertFalse(WalletAddresses.isValid(ADDRESS.substring(0, 41) + "g"));
+    }
+}
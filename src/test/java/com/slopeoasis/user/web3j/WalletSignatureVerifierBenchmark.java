@@ -0,0 +1,78 @@
+package com.slopeoasis.user.web3j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Sign;
+import org.web3j.utils.Numeric;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * secp256k1 recoveries per second on a single thread (i.e. per core), directly and
+ * through the worker pool of WalletVerificationService (hand-off and wait included):
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.args="WalletSignatureVerifierBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class WalletSignatureVerifierBenchmark {
+
+    private final WalletSignatureVerifier verifier = new WalletSignatureVerifier();
+    private WalletVerificationService service;
+    private String message;
+    private String signature;
+    private String address;
+
+    @Setup
+    public void setup() throws Exception {
+        ECKeyPair keyPair = Keys.createEcKeyPair();
+        address = "0x" + Keys.getAddress(keyPair);
+        message = "Verify wallet for slopeoasis: nonce 8f1c2a";
+        signature = sign(message, keyPair);
+        service = new WalletVerificationService(1, 64, 2000, 1024, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public String recover() {
+        return verifier.recoverAddress(message, signature);
+    }
+
+    @Benchmark
+    public boolean pooled() {
+        return service.verify(message, signature, address);
+    }
+
+    static String sign(String message, ECKeyPair keyPair) {
+        Sign.SignatureData sig = Sign.signPrefixedMessage(message.getBytes(StandardCharsets.UTF_8), keyPair);
+        byte[] bytes = new byte[65];
+        System.arraycopy(sig.getR(), 0, bytes, 0, 32);
+        System.arraycopy(sig.getS(), 0, bytes, 32, 32);
+        bytes[64] = sig.getV()[0];
+        return Numeric.toHexString(bytes);
+    }
+}
@@ -0,0 +1,40 @@
+package com.slopeoasis.user.web3j;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WalletVerificationServiceTest {
+
+    private final WalletVerificationService service = new WalletVerificationService(1, 4, 2000, 64, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void verifiesRecoveredAddress() throws Exception {
+        ECKeyPair keyPair = Keys.createEcKeyPair();
+        String address = "0x" + Keys.getAddress(keyPair);
+        String signature = WalletSignatureVerifierBenchmark.sign("hello", keyPair);
+
+        assertTrue(service.verify("hello", signature, address.toUpperCase().replace("0X", "0x")));
+        assertTrue(service.verify("hello", signature, address));
+        assertFalse(service.verify("hello", signature, "0x" + "0".repeat(40)));
+    }
+
+    @Test
+    void rejectsMalformedAndOversizedInput() {
+        assertFalse(service.verify("hello", "0x1234", "0x" + "0".repeat(40)));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.verify("x".repeat(65), "0x1234", "0x" + "0".repeat(40)));
+    }
+}
@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+# Two sessions write the same user at the same time, one the nickname and one the themes, and
+# every write that reports success is logged. Each writer keeps a counter in "its" column, so
+# afterwards counter == logged successes unless the other session overwrote it with a stale value.
+# Run against a scratch database (NOT production), needs psql and pgbench:
+#
+#   ./concurrent-profile-writes.sh -d userbench [-t 5000]
+#
+# legacy:  load the row, change one field, write every column back (entity save before user-008)
+# partial: the UPDATEs of UserRepo, touching only their own columns and guarded by version
+#          (a conflict updates nothing and is not logged; UserServ retries it)
+#
+# Expected: legacy loses increments in both columns, partial loses none.
+set -euo pipefail
+
+DB_ARGS=()
+TX=5000
+while getopts "d:h:p:U:t:" opt; do
+    case "$opt" in
+        d) DB_ARGS+=(-d "$OPTARG") ;;
+        h) DB_ARGS+=(-h "$OPTARG") ;;
+        p) DB_ARGS+=(-p "$OPTARG") ;;
+        U) DB_ARGS+=(-U "$OPTARG") ;;
+        t) TX="$OPTARG" ;;
+        *) exit 2 ;;
+    esac
+done
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cat > "$WORK/legacy-nickname.sql" <<'SQL'
+SELECT nickname, theme1 FROM users_bench WHERE clerk_id = 'user_bench' \gset old_
+WITH u AS (
+    UPDATE users_bench SET nickname = (:old_nickname + 1)::text, theme1 = :old_theme1 WHERE clerk_id = 'user_bench'
+    RETURNING 1)
+INSERT INTO writes_bench (kind) SELECT 'nickname' FROM u;
+SQL
+
+cat > "$WORK/legacy-themes.sql" <<'SQL'
+SELECT nickname, theme1 FROM users_bench WHERE clerk_id = 'user_bench' \gset old_
+WITH u AS (
+    UPDATE users_bench SET nickname = (:old_nickname)::text, theme1 = :old_theme1 + 1 WHERE clerk_id = 'user_bench'
+    RETURNING 1)
+INSERT INTO writes_bench (kind) SELECT 'themes' FROM u;
+SQL
+
+cat > "$WORK/partial-nickname.sql" <<'SQL'
+SELECT nickname, version FROM users_bench WHERE clerk_id = 'user_bench' \gset old_
+WITH u AS (
+    UPDATE users_bench SET nickname = (:old_nickname + 1)::text, version = version + 1
+    WHERE clerk_id = 'user_bench' AND version = :old_version
+    RETURNING 1)
+INSERT INTO writes_bench (kind) SELECT 'nickname' FROM u;
+SQL
+
+cat > "$WORK/partial-themes.sql" <<'SQL'
+SELECT theme1, version FROM users_bench WHERE clerk_id = 'user_bench' \gset old_
+WITH u AS (
+    UPDATE users_bench SET theme1 = :old_theme1 + 1, theme2 = NULL, theme3 = NULL, version = version + 1
+    WHERE clerk_id = 'user_bench' AND version = :old_version
+    RETURNING 1)
+INSERT INTO writes_bench (kind) SELECT 'themes' FROM u;
+SQL
+
+run() {
+    local mode=$1
+    psql "${DB_ARGS[@]}" -q -v ON_ERROR_STOP=1 <<'SQL'
+DROP TABLE IF EXISTS users_bench;
+DROP TABLE IF EXISTS writes_bench;
+CREATE TABLE users_bench (
+    id       INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    clerk_id VARCHAR(255) NOT NULL UNIQUE,
+    nickname VARCHAR(255),
+    theme1   SMALLINT,
+    theme2   SMALLINT,
+    theme3   SMALLINT,
+    version  BIGINT NOT NULL DEFAULT 0
+);
+CREATE TABLE writes_bench (kind TEXT NOT NULL);
+INSERT INTO users_bench (clerk_id, nickname, theme1) VALUES ('user_bench', '0', 0);
+SQL
+    # two sessions, one per writer, at the same time
+    pgbench "${DB_ARGS[@]}" -n -c 1 -t "$TX" -f "$WORK/$mode-nickname.sql" > /dev/null &
+    pgbench "${DB_ARGS[@]}" -n -c 1 -t "$TX" -f "$WORK/$mode-themes.sql" > /dev/null
+    wait
+    psql "${DB_ARGS[@]}" -q -v ON_ERROR_STOP=1 -v mode="$mode" <<'SQL'
+SELECT :'mode' AS mode,
+       (SELECT count(*) FROM writes_bench WHERE kind = 'nickname') AS nickname_writes,
+       (SELECT nickname::int FROM users_bench) AS nickname_counter,
+       (SELECT count(*) FROM writes_bench WHERE kind = 'themes') AS theme_writes,
+       (SELECT theme1 FROM users_bench) AS theme_counter;
+SQL
+}
+
+run legacy
+run partial
+
+psql "${DB_ARGS[@]}" -q -c "DROP TABLE users_bench; DROP TABLE writes_bench;"
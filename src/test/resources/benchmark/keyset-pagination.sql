@@ -0,0 +1,47 @@
+-- Page latency of the admin listing/search: OFFSET vs keyset (V6__nickname_prefix_index).
+-- Run against a scratch database (NOT production):
+--
+--   psql -d userbench -v rows=5000000 -f keyset-pagination.sql
+--
+-- Page 100,000 of 50 rows starts at row 5,000,000: OFFSET reads and discards all rows
+-- before it, the keyset query reads 50 rows from the index wherever the page is.
+
+\timing on
+
+DROP TABLE IF EXISTS users_bench;
+CREATE TABLE users_bench (
+    id                      INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    clerk_id                VARCHAR(255) NOT NULL UNIQUE,
+    nickname                VARCHAR(255),
+    polygon_wallet_address  VARCHAR(255)
+);
+
+INSERT INTO users_bench (clerk_id, nickname, polygon_wallet_address)
+SELECT 'user_' || md5(g::text),
+       CASE WHEN g % 4 = 0 THEN '' ELSE 'Creator' || g END,
+       ''
+FROM generate_series(1, :rows) AS g;
+CREATE INDEX users_bench_nickname_prefix_idx ON users_bench ((lower(nickname) COLLATE "C")) WHERE nickname <> '';
+ANALYZE users_bench;
+
+-- listing, page 1 and the last full page: OFFSET
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, clerk_id, nickname FROM users_bench ORDER BY id LIMIT 51 OFFSET 0;
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, clerk_id, nickname FROM users_bench ORDER BY id LIMIT 51 OFFSET :rows - 50;
+
+-- listing, same pages: keyset (the cursor holds the last id of the previous page)
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, clerk_id, nickname FROM users_bench WHERE id > 0 ORDER BY id LIMIT 51;
+EXPLAIN (ANALYZE, BUFFERS) SELECT id, clerk_id, nickname FROM users_bench WHERE id > :rows - 50 ORDER BY id LIMIT 51;
+
+-- prefix search, first page and a page deep into the range
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, clerk_id, nickname FROM users_bench
+WHERE nickname <> '' AND lower(nickname) COLLATE "C" >= 'creator1' AND lower(nickname) COLLATE "C" < 'creator2'
+  AND lower(nickname) COLLATE "C" > ''
+ORDER BY lower(nickname) COLLATE "C" LIMIT 51;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, clerk_id, nickname FROM users_bench
+WHERE nickname <> '' AND lower(nickname) COLLATE "C" >= 'creator1' AND lower(nickname) COLLATE "C" < 'creator2'
+  AND lower(nickname) COLLATE "C" > 'creator1999'
+ORDER BY lower(nickname) COLLATE "C" LIMIT 51;
+
+DROP TABLE users_bench;
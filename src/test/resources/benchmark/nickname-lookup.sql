@@ -0,0 +1,44 @@
+-- Nickname lookup latency before/after V2__nickname_and_wallet_indexes.
+-- Run against a scratch database (NOT production):
+--
+--   psql -d userbench -v rows=1000000 -f nickname-lookup.sql
+--
+-- Try rows=100000, 1000000 and 10000000. The script builds its own users_bench table,
+-- so it does not depend on the application schema.
+
+\timing on
+
+DROP TABLE IF EXISTS users_bench;
+CREATE TABLE users_bench (
+    id                      INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    clerk_id                VARCHAR(255) NOT NULL UNIQUE,
+    nickname                VARCHAR(255),
+    polygon_wallet_address  VARCHAR(255),
+    polygon_wallet_verified BOOLEAN
+);
+
+INSERT INTO users_bench (clerk_id, nickname, polygon_wallet_address, polygon_wallet_verified)
+SELECT 'user_' || md5(g::text),
+       CASE WHEN g % 4 = 0 THEN '' ELSE 'Creator' || g END,
+       CASE WHEN g % 3 = 0 THEN '0x' || substr(md5('w' || g), 1, 40) ELSE '' END,
+       g % 3 = 0
+FROM generate_series(1, :rows) AS g;
+ANALYZE users_bench;
+
+-- before: sequential scans
+EXPLAIN (ANALYZE, BUFFERS) SELECT clerk_id FROM users_bench WHERE lower(nickname) = lower('creator4242');
+EXPLAIN (ANALYZE, BUFFERS) SELECT clerk_id FROM users_bench WHERE polygon_wallet_address = '0x' || substr(md5('w3003'), 1, 40);
+
+CREATE UNIQUE INDEX users_bench_nickname_lower_uq ON users_bench (lower(nickname)) WHERE nickname <> '';
+CREATE INDEX users_bench_polygon_wallet_address_idx ON users_bench (polygon_wallet_address);
+ANALYZE users_bench;
+
+-- after: index scans
+EXPLAIN (ANALYZE, BUFFERS) SELECT clerk_id FROM users_bench WHERE lower(nickname) = lower('creator4242') AND nickname <> '';
+EXPLAIN (ANALYZE, BUFFERS) SELECT clerk_id FROM users_bench WHERE polygon_wallet_address = '0x' || substr(md5('w3003'), 1, 40);
+
+SELECT pg_size_pretty(pg_relation_size('users_bench')) AS table_size,
+       pg_size_pretty(pg_relation_size('users_bench_nickname_lower_uq')) AS nickname_index_size,
+       pg_size_pretty(pg_relation_size('users_bench_polygon_wallet_address_idx')) AS wallet_index_size;
+
+DROP TABLE users_bench;
@@ -0,0 +1,72 @@
+-- Row width, table and index size of the themes as enum names (varchar, before V7) vs
+-- smallint codes plus the theme_mask bitmask (V7__theme_codes), and the "users with theme X"
+-- scan over both. Run against a scratch database (NOT production):
+--
+--   psql -d userbench -v rows=1000000 -f theme-storage.sql
+
+\timing on
+
+DROP TABLE IF EXISTS themes_varchar;
+DROP TABLE IF EXISTS themes_smallint;
+
+CREATE TABLE themes_varchar (
+    id     INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    theme1 VARCHAR(255),
+    theme2 VARCHAR(255),
+    theme3 VARCHAR(255)
+);
+INSERT INTO themes_varchar (theme1, theme2, theme3)
+SELECT (ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER'])[1 + g % 9],
+       CASE WHEN g % 3 = 0 THEN NULL ELSE (ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER'])[1 + (g / 9) % 9] END,
+       CASE WHEN g % 2 = 0 THEN NULL ELSE (ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER'])[1 + (g / 81) % 9] END
+FROM generate_series(1, :rows) AS g;
+
+-- the same data, converted exactly as V7 does it
+CREATE TABLE themes_smallint AS TABLE themes_varchar;
+ALTER TABLE themes_smallint
+    ALTER COLUMN theme1 TYPE SMALLINT USING array_position(
+        ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER']::varchar[], theme1) - 1,
+    ALTER COLUMN theme2 TYPE SMALLINT USING array_position(
+        ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER']::varchar[], theme2) - 1,
+    ALTER COLUMN theme3 TYPE SMALLINT USING array_position(
+        ARRAY['ART','MUSIC','VIDEO','CODE','TEMPLATE','PHOTO','MODEL_3D','FONT','OTHER']::varchar[], theme3) - 1;
+ALTER TABLE themes_smallint ADD COLUMN theme_mask SMALLINT NOT NULL GENERATED ALWAYS AS (
+    (COALESCE(1 << theme1, 0) | COALESCE(1 << theme2, 0) | COALESCE(1 << theme3, 0))::smallint
+) STORED;
+
+CREATE INDEX themes_varchar_theme1_idx ON themes_varchar (theme1);
+CREATE INDEX themes_smallint_theme1_idx ON themes_smallint (theme1);
+VACUUM ANALYZE themes_varchar;
+VACUUM ANALYZE themes_smallint;
+
+-- average bytes of the theme columns per row, then whole table and index
+SELECT 'varchar' AS storage,
+       avg(coalesce(pg_column_size(theme1), 0) + coalesce(pg_column_size(theme2), 0) + coalesce(pg_column_size(theme3), 0)) AS theme_bytes,
+       avg(pg_column_size(t.*)) AS row_bytes,
+       pg_size_pretty(pg_table_size('themes_varchar')) AS table_size,
+       pg_size_pretty(pg_relation_size('themes_varchar_theme1_idx')) AS theme1_index
+FROM themes_varchar t
+UNION ALL
+SELECT 'smallint + mask',
+       avg(coalesce(pg_column_size(theme1), 0) + coalesce(pg_column_size(theme2), 0) + coalesce(pg_column_size(theme3), 0)
+           + pg_column_size(theme_mask)),
+       avg(pg_column_size(t.*)),
+       pg_size_pretty(pg_table_size('themes_smallint')),
+       pg_size_pretty(pg_relation_size('themes_smallint_theme1_idx'))
+FROM themes_smallint t;
+
+-- users with CODE in any slot: three string comparisons vs one bit test
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM themes_varchar WHERE theme1 = 'CODE' OR theme2 = 'CODE' OR theme3 = 'CODE';
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM themes_smallint WHERE theme_mask & (1 << 3) <> 0;
+
+-- the ThemeIndex rebuild scan before and after
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, theme1, theme2, theme3 FROM themes_varchar
+WHERE theme1 IS NOT NULL OR theme2 IS NOT NULL OR theme3 IS NOT NULL;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, theme_mask FROM themes_smallint WHERE theme_mask <> 0;
+
+DROP TABLE themes_varchar;
+DROP TABLE themes_smallint;
@@ -0,0 +1,38 @@
+// k6 load test: 10k concurrent connections against public (blocking JPA) endpoints.
+// Run once per mode and compare http_reqs/s and p95 latency:
+//
+//   VIRTUAL_THREADS_ENABLED=false mvn spring-boot:run   ->  k6 run src/test/resources/benchmark/virtual-threads.k6.js
+//   VIRTUAL_THREADS_ENABLED=true  mvn spring-boot:run   ->  k6 run src/test/resources/benchmark/virtual-threads.k6.js
+//
+// Seed users first:
+//   psql -c "INSERT INTO users (clerk_id, nickname, polygon_wallet_verified) SELECT 'bench_user_' || g, 'bench' || g, false FROM generate_series(1, 100000) g ON CONFLICT DO NOTHING"
+// To simulate a slow DB, add latency on the
+// Postgres port, e.g. `tc qdisc add dev lo root netem delay 20ms`, or set DB_POOL_SIZE low.
+// Needs `ulimit -n` above 10k on both the client and the server.
+// In virtual-thread mode requests beyond REQUESTS_MAX_IN_FLIGHT are shed with 429; compare the
+// "shed (429)" rate and p95 of the rest against the platform-thread run.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE = __ENV.BASE_URL || 'http://localhost:8080';
+const USERS = parseInt(__ENV.USERS || '100000');
+
+export const options = {
+    scenarios: {
+        concurrent: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '10000'),
+            duration: __ENV.DURATION || '60s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const id = Math.floor(Math.random() * USERS) + 1;
+    const res = http.get(`${BASE}/users/public/bench_user_${id}`, { timeout: '30s' });
+    check(res, {
+        'status 200/404': (r) => r.status === 200 || r.status === 404,
+        'shed (429)': (r) => r.status === 429,
+    });
+}